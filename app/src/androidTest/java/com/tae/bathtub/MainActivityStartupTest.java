@@ -0,0 +1,53 @@
+package com.tae.bathtub;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+
+import com.tae.bathtub.metrics.Histogram;
+import com.tae.bathtub.presentation.MainActivity;
+
+import java.util.Arrays;
+
+/**
+ * Startup benchmark, run it on the same device before and after a change to compare time to first
+ * frame. Every launch is timed from startActivity until the main thread goes idle after drawing.
+ * The first launch in the process also builds the boiler graph for the first time, it is reported
+ * apart from the median of the others.
+ */
+public class MainActivityStartupTest extends InstrumentationTestCase {
+
+    private static final String TAG = "STARTUP";
+    private static final int LAUNCHES = 10;
+
+    public void testTimeToFirstFrame() throws Exception {
+        Instrumentation instrumentation = getInstrumentation();
+        Intent intent = new Intent(Intent.ACTION_MAIN)
+                .setClassName(instrumentation.getTargetContext(), MainActivity.class.getName())
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+
+        long[] millis = new long[LAUNCHES];
+        for (int i = 0; i < LAUNCHES; i++) {
+            // A restored session takes a different path, every launch starts from an empty bathtub.
+            App.getInstance().getApplicationComponent().getSessionStore().clear();
+            long start = SystemClock.uptimeMillis();
+            Activity activity = instrumentation.startActivitySync(intent);
+            instrumentation.waitForIdleSync();
+            millis[i] = SystemClock.uptimeMillis() - start;
+            activity.finish();
+            instrumentation.waitForIdleSync();
+        }
+
+        long first = millis[0];
+        long[] warm = Arrays.copyOfRange(millis, 1, LAUNCHES);
+        Arrays.sort(warm);
+        Histogram processStart = App.getInstance().getApplicationComponent().getMetricsRegistry()
+                .histogram(App.FIRST_FRAME);
+        Log.i(TAG, "first launch " + first + " ms, median launch " + warm[warm.length / 2]
+                + " ms, application start to first frame " + processStart.getMax() + " ms");
+        assertEquals(1, processStart.getCount());
+    }
+}
@@ -1,6 +1,7 @@
 package com.tae.bathtub;
 
 import android.app.Application;
+import android.os.SystemClock;
 
 import com.tae.bathtub.di.component.ApplicationComponent;
 import com.tae.bathtub.di.component.DaggerApplicationComponent;
@@ -12,14 +13,32 @@ import com.tae.bathtub.di.modules.ApplicationModule;
  */
 public class App extends Application {
 
+    public static final String FIRST_FRAME = "startup.first_frame";
+
     public static App instance;
     public ApplicationComponent applicationComponent;
+    private long startUptime;
+    private boolean firstFrameReported;
 
     @Override
     public void onCreate() {
+        startUptime = SystemClock.uptimeMillis();
         super.onCreate();
         instance = this;
         resolveDependency();
+        applicationComponent.getNetworkPrewarmer().start();
+    }
+
+    /**
+     * Records the time from application start to the first frame drawn, only the first call counts.
+     */
+    public void reportFirstFrame() {
+        if (firstFrameReported) {
+            return;
+        }
+        firstFrameReported = true;
+        applicationComponent.getMetricsRegistry().histogram(FIRST_FRAME)
+                .record(SystemClock.uptimeMillis() - startUptime);
     }
 
     public static App getInstance() {
@@ -7,11 +7,16 @@ import com.tae.bathtub.data.api.model.Boiler;
 
 import org.json.JSONObject;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.http.GET;
 import retrofit2.http.HEAD;
+import retrofit2.http.Header;
 import retrofit2.http.Headers;
+import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 import rx.Observable;
 
 /**
@@ -23,5 +28,22 @@ public interface BathTubService {
     @GET(NetworkConstants.BOILER_END_POINT)
     Observable<Boiler> getBoiler();
 
+    @Headers({"Content-Type: application/json", "Accept: application/json"})
+    @GET(NetworkConstants.BOILER_END_POINT)
+    Observable<Boiler> getBoiler(@Header("Cache-Control") String cacheControl);
+
+    /**
+     * Boilers of every installation in {@code ids}, comma separated, as one object keyed by id.
+     * Streamed, the body is read while it downloads.
+     */
+    @Streaming
+    @Headers("Accept: application/json")
+    @GET(NetworkConstants.BOILERS_END_POINT)
+    Observable<ResponseBody> getBoilers(@Query("ids") String ids);
+
+    @Headers("Accept: application/json")
+    @GET(NetworkConstants.INSTALLATION_BOILER_END_POINT)
+    Observable<Boiler> getInstallationBoiler(@Path("id") String installationId);
+
 //    Call<Boiler> getBoiler();
 }
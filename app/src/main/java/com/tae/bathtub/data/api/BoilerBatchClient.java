@@ -0,0 +1,130 @@
+package com.tae.bathtub.data.api;
+
+import com.google.gson.stream.JsonReader;
+import com.tae.bathtub.data.api.model.Boiler;
+import com.tae.bathtub.data.api.model.InstallationBoiler;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import dagger.Lazy;
+import okhttp3.ResponseBody;
+import retrofit2.adapter.rxjava.HttpException;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Func1;
+
+/**
+ * Fetches the boilers of many installations. Ids go to the batch endpoint in chunks of
+ * {@link NetworkConstants#MAX_BATCH_SIZE}, and every boiler is emitted as soon as it is decoded from
+ * the response stream rather than once the whole body has arrived.
+ *
+ * A server without the batch endpoint answers with an HTTP error, the chunk is then fetched one
+ * installation at a time with at most {@link NetworkConstants#MAX_REQUESTS_PER_HOST} requests in
+ * flight. Failures while reading a batch are not retried per item, the results already emitted
+ * would be delivered twice.
+ */
+public class BoilerBatchClient {
+
+    private final Lazy<BathTubService> service;
+
+    @Inject
+    public BoilerBatchClient(Lazy<BathTubService> service) {
+        this.service = service;
+    }
+
+    public Observable<InstallationBoiler> getBoilers(List<String> installationIds) {
+        return Observable.from(installationIds)
+                .buffer(NetworkConstants.MAX_BATCH_SIZE)
+                .concatMap(new Func1<List<String>, Observable<InstallationBoiler>>() {
+                    @Override
+                    public Observable<InstallationBoiler> call(List<String> batch) {
+                        return getBatch(batch);
+                    }
+                });
+    }
+
+    private Observable<InstallationBoiler> getBatch(final List<String> installationIds) {
+        Observable<Observable<InstallationBoiler>> batch = service.get().getBoilers(join(installationIds))
+                .map(new Func1<ResponseBody, Observable<InstallationBoiler>>() {
+                    @Override
+                    public Observable<InstallationBoiler> call(ResponseBody body) {
+                        return decode(body);
+                    }
+                })
+                .onErrorResumeNext(new Func1<Throwable, Observable<Observable<InstallationBoiler>>>() {
+                    @Override
+                    public Observable<Observable<InstallationBoiler>> call(Throwable error) {
+                        if (error instanceof HttpException) {
+                            return Observable.just(getEach(installationIds));
+                        }
+                        return Observable.error(error);
+                    }
+                });
+        return Observable.concat(batch);
+    }
+
+    private Observable<InstallationBoiler> getEach(List<String> installationIds) {
+        return Observable.from(installationIds)
+                .flatMap(new Func1<String, Observable<InstallationBoiler>>() {
+                    @Override
+                    public Observable<InstallationBoiler> call(String installationId) {
+                        return getOne(installationId);
+                    }
+                }, NetworkConstants.MAX_REQUESTS_PER_HOST);
+    }
+
+    private Observable<InstallationBoiler> getOne(final String installationId) {
+        return service.get().getInstallationBoiler(installationId)
+                .map(new Func1<Boiler, InstallationBoiler>() {
+                    @Override
+                    public InstallationBoiler call(Boiler boiler) {
+                        return new InstallationBoiler(installationId, boiler);
+                    }
+                });
+    }
+
+    /**
+     * The batch body is an object keyed by installation id, each value is read like a single boiler.
+     */
+    static Observable<InstallationBoiler> decode(final ResponseBody body) {
+        return Observable.create(new Observable.OnSubscribe<InstallationBoiler>() {
+            @Override
+            public void call(Subscriber<? super InstallationBoiler> subscriber) {
+                JsonReader reader = new JsonReader(body.charStream());
+                try {
+                    reader.setLenient(true);
+                    reader.beginObject();
+                    while (reader.hasNext() && !subscriber.isUnsubscribed()) {
+                        String installationId = reader.nextName();
+                        subscriber.onNext(new InstallationBoiler(installationId, BoilerConverterFactory.readBoiler(reader)));
+                    }
+                    if (!subscriber.isUnsubscribed()) {
+                        reader.endObject();
+                        subscriber.onCompleted();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    subscriber.onError(e);
+                } finally {
+                    try {
+                        reader.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }).onBackpressureBuffer();
+    }
+
+    private static String join(List<String> installationIds) {
+        StringBuilder ids = new StringBuilder();
+        for (String installationId : installationIds) {
+            if (ids.length() > 0) {
+                ids.append(',');
+            }
+            ids.append(installationId);
+        }
+        return ids.toString();
+    }
+}
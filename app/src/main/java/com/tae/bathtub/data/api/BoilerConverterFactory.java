@@ -0,0 +1,73 @@
+package com.tae.bathtub.data.api;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.tae.bathtub.data.api.model.Boiler;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.inject.Inject;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Reads {@link Boiler} straight from the response stream in a single pass.
+ * The endpoint sends property names without quotes, so the reader runs in lenient mode.
+ */
+public class BoilerConverterFactory extends Converter.Factory {
+
+    private static final Converter<ResponseBody, Boiler> BOILER_CONVERTER = new Converter<ResponseBody, Boiler>() {
+        @Override
+        public Boiler convert(ResponseBody value) throws IOException {
+            JsonReader reader = new JsonReader(value.charStream());
+            try {
+                return readBoiler(reader);
+            } finally {
+                reader.close();
+            }
+        }
+    };
+
+    @Inject
+    public BoilerConverterFactory() {
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (Boiler.class.equals(type)) {
+            return BOILER_CONVERTER;
+        }
+        return null;
+    }
+
+    public static Boiler readBoiler(JsonReader reader) throws IOException {
+        reader.setLenient(true);
+        Integer hotWater = null;
+        Integer coldWater = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "hot_water":
+                case "hotWater":
+                    hotWater = reader.nextInt();
+                    break;
+                case "cold_water":
+                case "coldWater":
+                    coldWater = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        if (hotWater == null || coldWater == null) {
+            throw new JsonSyntaxException("Boiler is missing water temperatures at " + reader.getPath());
+        }
+        return new Boiler(hotWater, coldWater);
+    }
+}
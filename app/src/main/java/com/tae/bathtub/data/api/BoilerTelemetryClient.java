@@ -0,0 +1,160 @@
+package com.tae.bathtub.data.api;
+
+import com.google.gson.stream.JsonReader;
+import com.tae.bathtub.data.api.model.Boiler;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func1;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Live boiler updates as server-sent events. One long-lived request carries every update, each
+ * {@code data:} field holds a boiler in the same lenient JSON as the single endpoint. Comment lines
+ * keep an idle connection alive and are skipped.
+ *
+ * A dropped connection, a stream the server ends or a 5xx is retried after a backoff that doubles up
+ * to a maximum and starts over once an update gets through. Any other status means the server has
+ * no telemetry and ends the stream with an error.
+ *
+ * The stream is read on {@code ioScheduler}, the backoff waits run on {@code timerScheduler}.
+ */
+public class BoilerTelemetryClient {
+
+    private static final String DATA = "data:";
+
+    private final OkHttpClient client;
+    private final Request request;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Scheduler ioScheduler;
+    private final Scheduler timerScheduler;
+
+    public BoilerTelemetryClient(OkHttpClient client, HttpUrl url, long initialBackoff, long maxBackoff,
+                                 TimeUnit unit, Scheduler ioScheduler, Scheduler timerScheduler) {
+        this.client = client;
+        this.request = new Request.Builder()
+                .url(url)
+                .header("Accept", "text/event-stream")
+                .build();
+        this.initialBackoffMillis = unit.toMillis(initialBackoff);
+        this.maxBackoffMillis = unit.toMillis(maxBackoff);
+        this.ioScheduler = ioScheduler;
+        this.timerScheduler = timerScheduler;
+    }
+
+    public Observable<Boiler> getBoilerUpdates() {
+        final long[] backoff = {initialBackoffMillis};
+        return Observable.create(new Observable.OnSubscribe<Boiler>() {
+            @Override
+            public void call(Subscriber<? super Boiler> subscriber) {
+                readStream(subscriber);
+            }
+        })
+                .subscribeOn(ioScheduler)
+                .doOnNext(new Action1<Boiler>() {
+                    @Override
+                    public void call(Boiler boiler) {
+                        backoff[0] = initialBackoffMillis;
+                    }
+                })
+                .repeatWhen(new Func1<Observable<? extends Void>, Observable<?>>() {
+                    @Override
+                    public Observable<?> call(Observable<? extends Void> completions) {
+                        return completions.flatMap(new Func1<Void, Observable<Long>>() {
+                            @Override
+                            public Observable<Long> call(Void ignored) {
+                                return waitFor(backoff);
+                            }
+                        });
+                    }
+                })
+                .retryWhen(new Func1<Observable<? extends Throwable>, Observable<?>>() {
+                    @Override
+                    public Observable<?> call(Observable<? extends Throwable> errors) {
+                        return errors.flatMap(new Func1<Throwable, Observable<Long>>() {
+                            @Override
+                            public Observable<Long> call(Throwable error) {
+                                if (error instanceof IOException) {
+                                    return waitFor(backoff);
+                                }
+                                return Observable.error(error);
+                            }
+                        });
+                    }
+                });
+    }
+
+    private Observable<Long> waitFor(long[] backoff) {
+        long delay = backoff[0];
+        backoff[0] = Math.min(delay * 2, maxBackoffMillis);
+        return Observable.timer(delay, TimeUnit.MILLISECONDS, timerScheduler);
+    }
+
+    private void readStream(Subscriber<? super Boiler> subscriber) {
+        final Call call = client.newCall(request);
+        // Unsubscribing cancels the call, which unblocks the read below.
+        subscriber.add(Subscriptions.create(new Action0() {
+            @Override
+            public void call() {
+                call.cancel();
+            }
+        }));
+        Response response = null;
+        try {
+            response = call.execute();
+            if (response.code() >= 500) {
+                throw new IOException("Telemetry failed with " + response.code());
+            }
+            if (!response.isSuccessful()) {
+                throw new IllegalStateException("No boiler telemetry, server answered " + response.code());
+            }
+            readEvents(response.body().source(), subscriber);
+            if (!subscriber.isUnsubscribed()) {
+                subscriber.onCompleted();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!subscriber.isUnsubscribed()) {
+                subscriber.onError(e);
+            }
+        } finally {
+            if (response != null) {
+                response.body().close();
+            }
+        }
+    }
+
+    static void readEvents(BufferedSource source, Subscriber<? super Boiler> subscriber) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while (!subscriber.isUnsubscribed() && (line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                // A blank line dispatches the event collected so far.
+                if (data.length() > 0) {
+                    subscriber.onNext(BoilerConverterFactory.readBoiler(new JsonReader(new StringReader(data.toString()))));
+                    data.setLength(0);
+                }
+            } else if (line.startsWith(DATA)) {
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                int start = line.startsWith(" ", DATA.length()) ? DATA.length() + 1 : DATA.length();
+                data.append(line, start, line.length());
+            }
+            // Comments, event names, ids and retry hints carry nothing a boiler needs.
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.tae.bathtub.data.api;
+
+import com.tae.bathtub.metrics.MetricsRegistry;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Dns;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * The one transport every boiler fetch goes through. Connections are kept alive and reused across
+ * fetches, so only the first one pays for the TCP (and TLS) handshake.
+ *
+ * Responses are compressed transparently: OkHttp asks for gzip and inflates the body itself as long
+ * as nobody sets Accept-Encoding by hand.
+ */
+public final class HttpTransport {
+
+    // HTTP/2 is negotiated over TLS where the server offers it, everything else speaks HTTP/1.1.
+    private static final List<Protocol> PROTOCOLS =
+            Collections.unmodifiableList(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+
+    private HttpTransport() {
+    }
+
+    public static ConnectionPool newConnectionPool() {
+        return new ConnectionPool(NetworkConstants.POOL_MAX_IDLE_CONNECTIONS,
+                NetworkConstants.POOL_KEEP_ALIVE_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public static Dispatcher newDispatcher() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(NetworkConstants.MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(NetworkConstants.MAX_REQUESTS_PER_HOST);
+        return dispatcher;
+    }
+
+    /**
+     * @return a client builder sharing {@code pool} and {@code dispatcher}, with the app's timeouts
+     * and protocols and with DNS and connect times recorded in {@code registry}.
+     */
+    public static OkHttpClient.Builder newClientBuilder(ConnectionPool pool, Dispatcher dispatcher,
+                                                        MetricsRegistry registry) {
+        return new OkHttpClient.Builder()
+                .connectionPool(pool)
+                .dispatcher(dispatcher)
+                .protocols(PROTOCOLS)
+                .connectTimeout(NetworkConstants.CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(NetworkConstants.READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .writeTimeout(NetworkConstants.WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .dns(new TimingDns(Dns.SYSTEM, registry))
+                .socketFactory(new TimingSocketFactory(registry));
+    }
+}
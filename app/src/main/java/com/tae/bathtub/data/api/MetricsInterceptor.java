@@ -0,0 +1,147 @@
+package com.tae.bathtub.data.api;
+
+import com.tae.bathtub.metrics.Counter;
+import com.tae.bathtub.metrics.Histogram;
+import com.tae.bathtub.metrics.MetricsRegistry;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Records latency, bytes and failures of every call. Time to first byte ends when the response
+ * headers arrive, the total ends once the body has been read or closed. Responses served by the
+ * HTTP cache are only counted, they say nothing about the network.
+ *
+ * DNS and connect latency happen below the interceptor chain, {@link TimingDns} and
+ * {@link TimingSocketFactory} record those.
+ */
+public class MetricsInterceptor implements Interceptor {
+
+    public static final String DNS = "http.dns";
+    public static final String CONNECT = "http.connect";
+    public static final String TTFB = "http.ttfb";
+    public static final String TOTAL = "http.total";
+    public static final String BYTES_SENT = "http.bytes.sent";
+    public static final String BYTES_RECEIVED = "http.bytes.received";
+    public static final String ERRORS = "http.errors";
+    public static final String CACHE_HITS = "http.cache.hits";
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private final Histogram ttfb;
+    private final Histogram total;
+    private final Counter bytesSent;
+    private final Counter bytesReceived;
+    private final Counter errors;
+    private final Counter cacheHits;
+
+    public MetricsInterceptor(MetricsRegistry registry) {
+        ttfb = registry.histogram(TTFB);
+        total = registry.histogram(TOTAL);
+        bytesSent = registry.counter(BYTES_SENT);
+        bytesReceived = registry.counter(BYTES_RECEIVED);
+        errors = registry.counter(ERRORS);
+        cacheHits = registry.counter(CACHE_HITS);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (request.body() != null && request.body().contentLength() > 0) {
+            bytesSent.add(request.body().contentLength());
+        }
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            errors.increment();
+            throw e;
+        }
+        if (response.networkResponse() == null) {
+            cacheHits.increment();
+            return response;
+        }
+        ttfb.record(millisSince(start));
+        if (!response.isSuccessful() && response.code() != 304) {
+            errors.increment();
+        }
+        if (response.body() == null) {
+            total.record(millisSince(start));
+            return response;
+        }
+        return response.newBuilder()
+                .body(new MeteredBody(response.body(), start))
+                .build();
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / NANOS_PER_MILLI;
+    }
+
+    private class MeteredBody extends ResponseBody {
+        private final ResponseBody body;
+        private final BufferedSource source;
+        private boolean finished;
+
+        MeteredBody(ResponseBody body, final long start) {
+            this.body = body;
+            this.source = Okio.buffer(new ForwardingSource(body.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read;
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        errors.increment();
+                        finish(start);
+                        throw e;
+                    }
+                    if (read == -1) {
+                        finish(start);
+                    } else {
+                        bytesReceived.add(read);
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    finish(start);
+                    super.close();
+                }
+            });
+        }
+
+        private void finish(long start) {
+            if (!finished) {
+                finished = true;
+                total.record(millisSince(start));
+            }
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return body.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -7,4 +7,33 @@ public class NetworkConstants {
 
     public static final String BASE_URL = "http://static.content.akqa.net";
     public static final String BOILER_END_POINT = "/mobile-test/bath.json";
+    public static final String BOILERS_END_POINT = "/mobile-test/boilers.json";
+    public static final String INSTALLATION_BOILER_END_POINT = "/mobile-test/boilers/{id}.json";
+    public static final int MAX_BATCH_SIZE = 100;
+    public static final String BOILER_TELEMETRY_END_POINT = "/mobile-test/bath/events";
+
+    public static final String HTTP_CACHE_DIR = "http";
+    public static final long HTTP_CACHE_SIZE = 1024 * 1024;
+    public static final long BOILER_CACHE_TTL_MINUTES = 30;
+
+    // Every fetch goes to one host, a couple of idle connections cover it.
+    public static final int POOL_MAX_IDLE_CONNECTIONS = 2;
+    public static final long POOL_KEEP_ALIVE_MINUTES = 5;
+    public static final int MAX_REQUESTS = 16;
+    public static final int MAX_REQUESTS_PER_HOST = 4;
+    public static final long CONNECT_TIMEOUT_SECONDS = 10;
+    public static final long READ_TIMEOUT_SECONDS = 15;
+    public static final long WRITE_TIMEOUT_SECONDS = 15;
+    // The telemetry server sends a heartbeat well within this, a silent connection is dead.
+    public static final long TELEMETRY_READ_TIMEOUT_SECONDS = 60;
+    public static final long TELEMETRY_INITIAL_BACKOFF_SECONDS = 1;
+    public static final long TELEMETRY_MAX_BACKOFF_SECONDS = 60;
+
+    // A boiler fetch gets a few short attempts, after repeated failures the breaker stops trying for a while.
+    public static final long BOILER_CALL_DEADLINE_MILLIS = 5000;
+    public static final int BOILER_MAX_RETRIES = 3;
+    public static final long BOILER_RETRY_BASE_DELAY_MILLIS = 500;
+    public static final long BOILER_RETRY_MAX_DELAY_MILLIS = 8000;
+    public static final int BOILER_BREAKER_FAILURE_THRESHOLD = 3;
+    public static final long BOILER_BREAKER_OPEN_MILLIS = 30000;
 }
@@ -0,0 +1,41 @@
+package com.tae.bathtub.data.api;
+
+import android.os.Process;
+
+import com.tae.bathtub.metrics.Tracer;
+
+import javax.inject.Inject;
+
+import dagger.Lazy;
+
+/**
+ * Builds the network stack in the background while the first activity starts. OkHttp sets up its
+ * TLS context and Retrofit parses the service method, so neither runs on the main thread when the
+ * boiler is first requested. Whoever needs the service before this finishes simply waits for it.
+ */
+public class NetworkPrewarmer implements Runnable {
+
+    public static final String PREWARM = "startup.network_prewarm";
+
+    private final Lazy<BathTubService> service;
+    private final Tracer.Section prewarm;
+
+    @Inject
+    public NetworkPrewarmer(Lazy<BathTubService> service, Tracer tracer) {
+        this.service = service;
+        this.prewarm = tracer.section(PREWARM);
+    }
+
+    public void start() {
+        new Thread(this, "network-prewarm").start();
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        long start = prewarm.begin();
+        // Creating the observable loads the service method without making a request.
+        service.get().getBoiler(null);
+        prewarm.end(start);
+    }
+}
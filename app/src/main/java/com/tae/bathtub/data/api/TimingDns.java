@@ -0,0 +1,34 @@
+package com.tae.bathtub.data.api;
+
+import com.tae.bathtub.metrics.Histogram;
+import com.tae.bathtub.metrics.MetricsRegistry;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+import okhttp3.Dns;
+
+/**
+ * Times every lookup OkHttp makes, pooled connections skip DNS so it only shows up for new ones.
+ */
+public class TimingDns implements Dns {
+
+    private final Dns delegate;
+    private final Histogram lookups;
+
+    public TimingDns(Dns delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.lookups = registry.histogram(MetricsInterceptor.DNS);
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        long start = System.nanoTime();
+        try {
+            return delegate.lookup(hostname);
+        } finally {
+            lookups.record((System.nanoTime() - start) / 1000000);
+        }
+    }
+}
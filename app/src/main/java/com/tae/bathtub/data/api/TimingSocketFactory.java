@@ -0,0 +1,59 @@
+package com.tae.bathtub.data.api;
+
+import com.tae.bathtub.metrics.Histogram;
+import com.tae.bathtub.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+
+import javax.net.SocketFactory;
+
+/**
+ * Hands OkHttp sockets that time their own connect. OkHttp always creates unconnected sockets, the
+ * connected variants are only there to complete the contract.
+ */
+public class TimingSocketFactory extends SocketFactory {
+
+    private final Histogram connects;
+
+    public TimingSocketFactory(MetricsRegistry registry) {
+        this.connects = registry.histogram(MetricsInterceptor.CONNECT);
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+        return new Socket() {
+            @Override
+            public void connect(SocketAddress endpoint, int timeout) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    super.connect(endpoint, timeout);
+                } finally {
+                    connects.record((System.nanoTime() - start) / 1000000);
+                }
+            }
+        };
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return SocketFactory.getDefault().createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return SocketFactory.getDefault().createSocket(host, port, localHost, localPort);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return SocketFactory.getDefault().createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        return SocketFactory.getDefault().createSocket(address, port, localAddress, localPort);
+    }
+}
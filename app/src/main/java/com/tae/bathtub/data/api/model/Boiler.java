@@ -7,11 +7,14 @@ import javax.inject.Inject;
  */
 public class Boiler {
 
+    // Served when no boiler can be fetched and none is cached, the endpoint has always sent these.
+    public static final Boiler DEFAULT = new Boiler(50, 10);
 
-    private Integer hot_water;
-    private Integer cold_water;
+    // Primitive so the getters never unbox, BoilerConverterFactory rejects a boiler missing either value.
+    private int hot_water;
+    private int cold_water;
 
-    public Boiler(Integer hot_water, Integer cold_water) {
+    public Boiler(int hot_water, int cold_water) {
         this.hot_water = hot_water;
         this.cold_water = cold_water;
     }
@@ -23,4 +26,17 @@ public class Boiler {
     public int getCold_water() {
         return cold_water;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Boiler boiler = (Boiler) o;
+        return hot_water == boiler.hot_water && cold_water == boiler.cold_water;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * hot_water + cold_water;
+    }
 }
@@ -0,0 +1,36 @@
+package com.tae.bathtub.data.api.model;
+
+/**
+ * The boiler configuration of one installation, as returned by the batch endpoint.
+ */
+public class InstallationBoiler {
+
+    private final String installationId;
+    private final Boiler boiler;
+
+    public InstallationBoiler(String installationId, Boiler boiler) {
+        this.installationId = installationId;
+        this.boiler = boiler;
+    }
+
+    public String getInstallationId() {
+        return installationId;
+    }
+
+    public Boiler getBoiler() {
+        return boiler;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        InstallationBoiler that = (InstallationBoiler) o;
+        return installationId.equals(that.installationId) && boiler.equals(that.boiler);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * installationId.hashCode() + boiler.hashCode();
+    }
+}
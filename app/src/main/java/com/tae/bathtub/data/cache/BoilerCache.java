@@ -0,0 +1,57 @@
+package com.tae.bathtub.data.cache;
+
+import com.tae.bathtub.data.api.model.Boiler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory tier in front of the OkHttp disk cache. It keeps the last fetched boiler
+ * and reports it fresh until the TTL runs out, after which callers should revalidate.
+ */
+public class BoilerCache {
+
+    private final long ttlNanos;
+    private Boiler boiler;
+    private long storedAt;
+
+    public BoilerCache(long ttl, TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    public synchronized void put(Boiler boiler) {
+        this.boiler = boiler;
+        this.storedAt = System.nanoTime();
+    }
+
+    /**
+     * Stores a boiler that was fetched {@code age} ago, it stays fresh only for the rest of the TTL.
+     */
+    public synchronized void put(Boiler boiler, long age, TimeUnit unit) {
+        this.boiler = boiler;
+        // Anything older than the TTL is just stale, capping it keeps the subtraction from overflowing.
+        this.storedAt = System.nanoTime() - Math.min(unit.toNanos(age), ttlNanos);
+    }
+
+    public synchronized Boiler get() {
+        return boiler;
+    }
+
+    /**
+     * @return how long ago {@code boiler} was stored, or {@link Long#MAX_VALUE} if it is not the
+     * cached one.
+     */
+    public synchronized long getAge(Boiler boiler, TimeUnit unit) {
+        if (this.boiler == null || !this.boiler.equals(boiler)) {
+            return Long.MAX_VALUE;
+        }
+        return unit.convert(System.nanoTime() - storedAt, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized boolean isFresh() {
+        return boiler != null && System.nanoTime() - storedAt < ttlNanos;
+    }
+
+    public synchronized void clear() {
+        boiler = null;
+    }
+}
@@ -1,5 +1,8 @@
 package com.tae.bathtub.data.local;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -8,23 +11,76 @@ import java.util.List;
 public class Bathtub {
 
     public static final int MAX_CAPACITY = 220;
+    private static final int BOTH_TAPS = (1 << Tap.Type.COLD.ordinal()) | (1 << Tap.Type.HOT.ordinal());
     private int level;
     private int temperature;
-    private List<Tap> taps;
+    // Taps are indexed by Tap.Type ordinal, bit n of openTaps is set while the tap at n is open.
+    private final Tap[] taps = new Tap[Tap.Type.values().length];
+    private List<Tap> tapList = Collections.emptyList();
+    private int openTaps;
+    // Running totals behind level and temperature, heat is the sum of volume * temperature poured in.
+    private double volume;
+    private double heat;
 
     public Bathtub() {
     }
 
     public Bathtub(List<Tap> taps) {
-        this.taps = taps;
+        setTaps(taps);
     }
 
     public List<Tap> getTaps() {
-        return taps;
+        return tapList;
     }
 
+    /**
+     * Takes a copy of {@code taps}, later changes to the caller's list do not reach the bathtub.
+     * Null leaves the bathtub without taps.
+     */
     public void setTaps(List<Tap> taps) {
-        this.taps = taps;
+        Arrays.fill(this.taps, null);
+        openTaps = 0;
+        if (taps == null) {
+            tapList = Collections.emptyList();
+            return;
+        }
+        for (Tap tap : taps) {
+            int index = tap.getType().ordinal();
+            this.taps[index] = tap;
+            if (tap.isOpen()) {
+                openTaps |= 1 << index;
+            }
+        }
+        tapList = Collections.unmodifiableList(new ArrayList<>(taps));
+    }
+
+    public Tap getTap(Tap.Type type) {
+        return taps[type.ordinal()];
+    }
+
+    public boolean isTapOpen(Tap.Type type) {
+        return (openTaps & (1 << type.ordinal())) != 0;
+    }
+
+    public void setTapOpen(Tap.Type type, boolean open) {
+        int index = type.ordinal();
+        taps[index].setOpen(open);
+        if (open) {
+            openTaps |= 1 << index;
+        } else {
+            openTaps &= ~(1 << index);
+        }
+    }
+
+    /**
+     * @return a bit per {@link Tap.Type} ordinal, set while that tap is open.
+     */
+    public int getOpenTaps() {
+        return openTaps;
+    }
+
+    public boolean hasOpenTaps() {
+        return openTaps != 0;
     }
 
     public int getLevel() {
@@ -33,6 +89,8 @@ public class Bathtub {
 
     public void setLevel(int level) {
         this.level = level;
+        this.volume = level;
+        this.heat = level * temperature;
     }
 
     public int getTemperature() {
@@ -41,20 +99,43 @@ public class Bathtub {
 
     public void setTemperature(int temperature) {
         this.temperature = temperature;
+        this.heat = volume * temperature;
     }
 
-    public boolean areTwoTapsOpen(List<Tap> tapList) {
-        int counter = 0;
-        for (Tap tap : tapList) {
-            if (tap.isOpen()) {
-                counter++;
-            }
+    public double getVolume() {
+        return volume;
+    }
+
+    public double getHeat() {
+        return heat;
+    }
+
+    /**
+     * Puts back water saved from an earlier session, keeping the exact running totals.
+     */
+    void restoreWater(double volume, double heat) {
+        this.volume = volume;
+        this.heat = heat;
+        level = (int) volume;
+        temperature = volume > 0 ? (int) Math.round(heat / volume) : 0;
+    }
+
+    /**
+     * Pours {@code amount} of water at {@code waterTemperature} into the bathtub and mixes it with
+     * the water already there.
+     */
+    public void addWater(double amount, double waterTemperature) {
+        if (amount <= 0) {
+            return;
         }
-        return counter > 1;
+        volume += amount;
+        heat += amount * waterTemperature;
+        level = (int) volume;
+        temperature = (int) Math.round(heat / volume);
     }
 
-    public int getTemperatureFromTaps(int cold, int hot) {
-        return (cold + hot) / 2;
+    public boolean areTwoTapsOpen() {
+        return openTaps == BOTH_TAPS;
     }
 
 
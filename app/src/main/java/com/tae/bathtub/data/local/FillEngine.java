@@ -0,0 +1,88 @@
+package com.tae.bathtub.data.local;
+
+/**
+ * Closed-form fill model for a {@link Bathtub}. Between tap changes the inflow is constant, so level
+ * and mixed temperature are plain functions of elapsed time and can be sampled at any moment
+ * without stepping. Water is poured into the bathtub's thermal accumulator whenever the engine
+ * advances, which keeps every update O(1).
+ */
+public class FillEngine {
+
+    private static final double MILLIS_PER_SECOND = 1000d;
+    private static final Tap.Type[] TAP_TYPES = Tap.Type.values();
+
+    private final Bathtub bathtub;
+    private long lastUpdate;
+    private double flowRate;
+    private double inflowTemperature;
+
+    public FillEngine(Bathtub bathtub, long now) {
+        this.bathtub = bathtub;
+        this.lastUpdate = now;
+    }
+
+    /**
+     * Pours the water that came in up to {@code now} and picks up the flow of the taps open from then on.
+     */
+    public void onTapsChanged(long now) {
+        advanceTo(now);
+        double flow = 0;
+        double heatFlow = 0;
+        for (Tap.Type type : TAP_TYPES) {
+            if (bathtub.isTapOpen(type)) {
+                Tap tap = bathtub.getTap(type);
+                flow += tap.getFlowRate();
+                heatFlow += tap.getFlowRate() * tap.getTemperature();
+            }
+        }
+        flowRate = flow;
+        inflowTemperature = flow > 0 ? heatFlow / flow : 0;
+    }
+
+    /**
+     * Writes the state reached at {@code now} into the bathtub.
+     */
+    public void sample(long now) {
+        advanceTo(now);
+    }
+
+    public double levelAt(long now) {
+        return bathtub.getVolume() + inflowUntil(now);
+    }
+
+    public double temperatureAt(long now) {
+        double inflow = inflowUntil(now);
+        double volume = bathtub.getVolume() + inflow;
+        return volume > 0 ? (bathtub.getHeat() + inflow * inflowTemperature) / volume : 0;
+    }
+
+    /**
+     * @return the time at which the bathtub reaches {@link Bathtub#MAX_CAPACITY}, or
+     * {@link Long#MAX_VALUE} if no water is flowing.
+     */
+    public long fullAt() {
+        double room = Bathtub.MAX_CAPACITY - bathtub.getVolume();
+        if (room <= 0) {
+            return lastUpdate;
+        }
+        if (flowRate <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return lastUpdate + (long) Math.ceil(room / flowRate * MILLIS_PER_SECOND);
+    }
+
+    public boolean isFull(long now) {
+        return levelAt(now) >= Bathtub.MAX_CAPACITY;
+    }
+
+    private void advanceTo(long now) {
+        bathtub.addWater(inflowUntil(now), inflowTemperature);
+        lastUpdate = Math.max(lastUpdate, now);
+    }
+
+    private double inflowUntil(long now) {
+        double inflow = flowRate * Math.max(0, now - lastUpdate) / MILLIS_PER_SECOND;
+        // Once the tub is full no more water comes in.
+        return Math.min(inflow, Math.max(0, Bathtub.MAX_CAPACITY - bathtub.getVolume()));
+    }
+}
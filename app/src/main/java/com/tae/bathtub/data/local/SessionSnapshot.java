@@ -0,0 +1,37 @@
+package com.tae.bathtub.data.local;
+
+import com.tae.bathtub.data.api.model.Boiler;
+
+/**
+ * Everything needed to resume a bathtub session: the water, the taps and the boiler the taps were
+ * set from.
+ */
+public class SessionSnapshot {
+
+    private final Bathtub bathtub;
+    private final Boiler boiler;
+    private final long boilerFetchedAt;
+
+    /**
+     * @param boiler          may be null if the boiler had not arrived yet.
+     * @param boilerFetchedAt wall clock time at which the boiler was fetched, 0 if it never came from
+     *                        the server.
+     */
+    public SessionSnapshot(Bathtub bathtub, Boiler boiler, long boilerFetchedAt) {
+        this.bathtub = bathtub;
+        this.boiler = boiler;
+        this.boilerFetchedAt = boilerFetchedAt;
+    }
+
+    public Bathtub getBathtub() {
+        return bathtub;
+    }
+
+    public Boiler getBoiler() {
+        return boiler;
+    }
+
+    public long getBoilerFetchedAt() {
+        return boilerFetchedAt;
+    }
+}
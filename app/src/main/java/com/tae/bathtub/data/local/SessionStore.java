@@ -0,0 +1,125 @@
+package com.tae.bathtub.data.local;
+
+import android.util.Log;
+
+import com.tae.bathtub.metrics.Tracer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the last {@link SessionSnapshot} in a file. Saving encodes on the calling thread, so the
+ * snapshot is consistent with the state it was taken from, and writes on the given executor.
+ * Saves arriving while a write is pending replace it, only the newest snapshot reaches the disk.
+ *
+ * Loading is synchronous and meant to run in onCreate, it reads at most
+ * {@link #MAX_SNAPSHOT_BYTES} and is traced as {@link #RESTORE}.
+ */
+public class SessionStore {
+
+    public static final String RESTORE = "session.restore";
+    static final int MAX_SNAPSHOT_BYTES = 4096;
+    // Queued in place of a snapshot by clear(), the writer deletes the file instead of writing it.
+    private static final byte[] CLEARED = new byte[0];
+
+    private final File file;
+    private final Executor writer;
+    private final Tracer.Section restore;
+    private final AtomicReference<byte[]> pending = new AtomicReference<>();
+    private final Runnable write = new Runnable() {
+        @Override
+        public void run() {
+            byte[] data = pending.getAndSet(null);
+            if (data == CLEARED) {
+                file.delete();
+            } else if (data != null) {
+                writeFile(data);
+            }
+        }
+    };
+
+    public SessionStore(File file, Executor writer, Tracer tracer) {
+        this.file = file;
+        this.writer = writer;
+        this.restore = tracer.section(RESTORE);
+    }
+
+    public void save(SessionSnapshot snapshot) {
+        if (pending.getAndSet(SnapshotCodec.encode(snapshot)) == null) {
+            writer.execute(write);
+        }
+    }
+
+    /**
+     * @return the last saved snapshot, or null if there is none or it cannot be read.
+     */
+    public SessionSnapshot load() {
+        long start = restore.begin();
+        try {
+            if (!file.exists() || file.length() > MAX_SNAPSHOT_BYTES) {
+                return null;
+            }
+            return SnapshotCodec.decode(readFile());
+        } catch (IOException e) {
+            Log.w("SESSION", "Discarding unreadable snapshot", e);
+            return null;
+        } finally {
+            restore.end(start);
+        }
+    }
+
+    /**
+     * Deletes the snapshot at once, and again on the writer so a write already under way cannot bring
+     * it back.
+     */
+    public void clear() {
+        if (pending.getAndSet(CLEARED) == null) {
+            writer.execute(write);
+        }
+        file.delete();
+    }
+
+    private byte[] readFile() throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int read = 0;
+            while (read < data.length) {
+                int count = in.read(data, read, data.length - read);
+                if (count < 0) {
+                    throw new IOException("Snapshot truncated");
+                }
+                read += count;
+            }
+        } finally {
+            in.close();
+        }
+        return data;
+    }
+
+    /**
+     * Writes next to the snapshot and renames over it, a crash mid write leaves the previous one intact.
+     */
+    private void writeFile(byte[] data) {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            FileOutputStream out = new FileOutputStream(temp);
+            try {
+                out.write(data);
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+        } catch (IOException e) {
+            Log.w("SESSION", "Could not save snapshot", e);
+            temp.delete();
+        }
+    }
+}
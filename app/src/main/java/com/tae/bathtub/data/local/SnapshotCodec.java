@@ -0,0 +1,101 @@
+package com.tae.bathtub.data.local;
+
+import com.tae.bathtub.data.api.model.Boiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary format of a {@link SessionSnapshot}, a few dozen bytes with no reflection involved.
+ *
+ * <pre>
+ * int     magic
+ * byte    version
+ * double  volume, heat
+ * byte    tap count, then per tap: byte type ordinal, int temperature, boolean open, double flow rate
+ * boolean has boiler, then: int hot water, int cold water, long fetched at
+ * </pre>
+ */
+public final class SnapshotCodec {
+
+    private static final int MAGIC = 0x42415448;
+    private static final byte VERSION = 1;
+    private static final Tap.Type[] TAP_TYPES = Tap.Type.values();
+
+    private SnapshotCodec() {
+    }
+
+    public static byte[] encode(SessionSnapshot snapshot) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            Bathtub bathtub = snapshot.getBathtub();
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeDouble(bathtub.getVolume());
+            out.writeDouble(bathtub.getHeat());
+            List<Tap> taps = bathtub.getTaps();
+            out.writeByte(taps.size());
+            for (Tap tap : taps) {
+                out.writeByte(tap.getType().ordinal());
+                out.writeInt(tap.getTemperature());
+                out.writeBoolean(tap.isOpen());
+                out.writeDouble(tap.getFlowRate());
+            }
+            Boiler boiler = snapshot.getBoiler();
+            out.writeBoolean(boiler != null);
+            if (boiler != null) {
+                out.writeInt(boiler.getHot_water());
+                out.writeInt(boiler.getCold_water());
+                out.writeLong(snapshot.getBoilerFetchedAt());
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw.
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException if {@code data} is truncated or not a snapshot this version can read.
+     */
+    public static SessionSnapshot decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a bathtub snapshot");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        double volume = in.readDouble();
+        double heat = in.readDouble();
+        int tapCount = in.readUnsignedByte();
+        List<Tap> taps = new ArrayList<>(tapCount);
+        for (int i = 0; i < tapCount; i++) {
+            int ordinal = in.readUnsignedByte();
+            if (ordinal >= TAP_TYPES.length) {
+                throw new IOException("Unknown tap type " + ordinal);
+            }
+            Tap tap = new Tap(TAP_TYPES[ordinal], in.readInt(), in.readBoolean());
+            tap.setFlowRate(in.readDouble());
+            taps.add(tap);
+        }
+        Bathtub bathtub = new Bathtub(taps);
+        bathtub.restoreWater(volume, heat);
+        Boiler boiler = null;
+        long fetchedAt = 0;
+        if (in.readBoolean()) {
+            int hotWater = in.readInt();
+            int coldWater = in.readInt();
+            boiler = new Boiler(hotWater, coldWater);
+            fetchedAt = in.readLong();
+        }
+        return new SessionSnapshot(bathtub, boiler, fetchedAt);
+    }
+}
@@ -6,35 +6,50 @@ package com.tae.bathtub.data.local;
 public class Tap {
 
     public enum Type{
-        COLD, HOT
+        COLD(10d / 3), HOT(12d / 3);
+
+        private final double defaultFlowRate;
+
+        Type(double defaultFlowRate) {
+            this.defaultFlowRate = defaultFlowRate;
+        }
+
+        /**
+         * @return units of water per second.
+         */
+        public double getDefaultFlowRate() {
+            return defaultFlowRate;
+        }
     }
 
-    private String type;
+    private final Type type;
     private int temperature;
     private boolean open;
+    private double flowRate;
 
-    public Tap () {
+    public Tap(Type type) {
+        this(type, 0, false);
     }
 
-    public Tap(String type, int temperature, boolean open) {
+    public Tap(Type type, int temperature, boolean open) {
         this.type = type;
         this.temperature = temperature;
         this.open = open;
+        this.flowRate = type.getDefaultFlowRate();
     }
 
-    public String getType() {
+    public Type getType() {
         return type;
     }
 
-    public void setType(String type) {
-        this.type = type;
-    }
-
     public boolean isOpen() {
         return open;
     }
 
-    public void setOpen(boolean open) {
+    /**
+     * Only {@link Bathtub#setTapOpen(Type, boolean)} opens or closes a tap, so its open mask stays in sync.
+     */
+    void setOpen(boolean open) {
         this.open = open;
     }
 
@@ -46,4 +61,15 @@ public class Tap {
         this.temperature = temperature;
     }
 
+    /**
+     * @return units of water per second while the tap is open.
+     */
+    public double getFlowRate() {
+        return flowRate;
+    }
+
+    public void setFlowRate(double flowRate) {
+        this.flowRate = flowRate;
+    }
+
 }
@@ -0,0 +1,282 @@
+package com.tae.bathtub.data.local;
+
+import com.tae.bathtub.data.api.model.Boiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of what changed the flow into a {@link Bathtub}: taps opening and closing and
+ * boiler updates. The water itself is never logged, {@link FillEngine} derives it from the events,
+ * so {@link #replay(long)} rebuilds the bathtub at any moment of the fill, or fast-forwards it past
+ * the last event.
+ *
+ * Events live in a ring buffer of primitive arrays, the oldest are overwritten once it is full. Every
+ * {@code snapshotInterval} events the replayed state is kept as a snapshot, a replay starts from the
+ * latest snapshot before it and never applies more than {@code snapshotInterval} events.
+ *
+ * Each event is a timestamp and one int:
+ * <pre>
+ * tap     kind (2 bits) | open (1) | type ordinal (4) | temperature (16, signed)
+ * boiler  kind (2 bits) | hot water (15, signed) | cold water (15, signed)
+ * </pre>
+ * Recording runs on the main thread and must never fail it, a temperature beyond what its field
+ * holds is clamped. No boiler comes anywhere near those bounds.
+ */
+public class TapHistory {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 64;
+
+    private static final Tap.Type[] TAP_TYPES = Tap.Type.values();
+    private static final int KIND_SHIFT = 30;
+    private static final int KIND_TAP = 1;
+    private static final int KIND_BOILER = 2;
+    private static final int OPEN_BIT = 1 << 29;
+    private static final int TYPE_SHIFT = 16;
+    private static final int WATER_BITS = 15;
+    private static final int WATER_MASK = (1 << WATER_BITS) - 1;
+    private static final int WATER_MIN = -(1 << (WATER_BITS - 1));
+    private static final int WATER_MAX = (1 << (WATER_BITS - 1)) - 1;
+
+    private final int capacity;
+    private final int snapshotInterval;
+    private final long[] eventTimes;
+    private final int[] events;
+    // Events ever appended, the one at sequence n is stored at n % capacity.
+    private long nextSeq;
+
+    private final int snapshotCapacity;
+    private final long[] snapshotTimes;
+    private final long[] snapshotSeqs;
+    private final double[] snapshotVolumes;
+    private final double[] snapshotHeats;
+    private final int[] snapshotOpenTaps;
+    private final int[] snapshotTemperatures;
+    private int snapshots;
+
+    // The taps of the bathtub being recorded, flow rates never change during a fill.
+    private int tapTypes;
+    private final double[] flowRates = new double[TAP_TYPES.length];
+
+    // Live replay of the log, it produces the snapshots and spots which taps changed.
+    private Bathtub head;
+    private FillEngine headEngine;
+
+    public TapHistory(int capacity, int snapshotInterval) {
+        if (snapshotInterval <= 0 || snapshotInterval > capacity) {
+            throw new IllegalArgumentException("snapshot interval " + snapshotInterval + " for capacity " + capacity);
+        }
+        this.capacity = capacity;
+        this.snapshotInterval = snapshotInterval;
+        eventTimes = new long[capacity];
+        events = new int[capacity];
+        // Enough for one snapshot behind the oldest retained event at all times.
+        snapshotCapacity = capacity / snapshotInterval + 2;
+        snapshotTimes = new long[snapshotCapacity];
+        snapshotSeqs = new long[snapshotCapacity];
+        snapshotVolumes = new double[snapshotCapacity];
+        snapshotHeats = new double[snapshotCapacity];
+        snapshotOpenTaps = new int[snapshotCapacity];
+        snapshotTemperatures = new int[snapshotCapacity * TAP_TYPES.length];
+    }
+
+    /**
+     * Forgets the previous fill and starts recording {@code bathtub} as it is at {@code now}. Like the
+     * presenter's engine the history starts without flow, taps already open are logged by the first
+     * {@link #recordTaps(long, Bathtub)}.
+     */
+    public synchronized void reset(Bathtub bathtub, long now) {
+        nextSeq = 0;
+        snapshots = 0;
+        tapTypes = 0;
+        List<Tap> taps = new ArrayList<>(bathtub.getTaps().size());
+        for (Tap tap : bathtub.getTaps()) {
+            int index = tap.getType().ordinal();
+            tapTypes |= 1 << index;
+            flowRates[index] = tap.getFlowRate();
+            taps.add(new Tap(tap.getType(), tap.getTemperature(), false));
+        }
+        head = new Bathtub(taps);
+        applyFlowRates(head);
+        head.restoreWater(bathtub.getVolume(), bathtub.getHeat());
+        headEngine = new FillEngine(head, now);
+        takeSnapshot(now);
+    }
+
+    /**
+     * Logs every tap of {@code bathtub} whose flow differs from the history's: it opened, closed,
+     * or runs at another temperature.
+     */
+    public synchronized void recordTaps(long now, Bathtub bathtub) {
+        if (head == null) {
+            return;
+        }
+        for (Tap.Type type : TAP_TYPES) {
+            Tap tap = bathtub.getTap(type);
+            Tap recorded = head.getTap(type);
+            if (tap == null || recorded == null) {
+                continue;
+            }
+            boolean opened = tap.isOpen() != recorded.isOpen();
+            boolean reheated = tap.isOpen() && tap.getTemperature() != recorded.getTemperature();
+            if (opened || reheated) {
+                append(now, encodeTap(type, tap.isOpen(), tap.getTemperature()));
+            }
+        }
+    }
+
+    public synchronized void recordBoiler(long now, Boiler boiler) {
+        if (head == null) {
+            return;
+        }
+        append(now, encodeBoiler(boiler.getHot_water(), boiler.getCold_water()));
+    }
+
+    /**
+     * Rebuilds the bathtub as it was at {@code time}. The same log always gives the same bathtub.
+     *
+     * @return a new bathtub, or null if {@code time} is older than the retained history.
+     */
+    public synchronized Bathtub replay(long time) {
+        int snapshot = latestSnapshotAt(time);
+        if (snapshot < 0) {
+            return null;
+        }
+        int slot = snapshot % snapshotCapacity;
+        long start = snapshotTimes[slot];
+        List<Tap> taps = new ArrayList<>(TAP_TYPES.length);
+        for (Tap.Type type : TAP_TYPES) {
+            int index = type.ordinal();
+            if ((tapTypes & (1 << index)) != 0) {
+                taps.add(new Tap(type, snapshotTemperatures[slot * TAP_TYPES.length + index],
+                        (snapshotOpenTaps[slot] & (1 << index)) != 0));
+            }
+        }
+        Bathtub bathtub = new Bathtub(taps);
+        applyFlowRates(bathtub);
+        bathtub.restoreWater(snapshotVolumes[slot], snapshotHeats[slot]);
+        FillEngine engine = new FillEngine(bathtub, start);
+        engine.onTapsChanged(start);
+        for (long seq = snapshotSeqs[slot]; seq < nextSeq; seq++) {
+            int index = (int) (seq % capacity);
+            if (eventTimes[index] > time) {
+                break;
+            }
+            apply(bathtub, engine, eventTimes[index], events[index]);
+        }
+        engine.sample(time);
+        return bathtub;
+    }
+
+    /**
+     * @return the time replay can go back to, or {@link Long#MAX_VALUE} if nothing is recorded.
+     */
+    public synchronized long getOldestTime() {
+        int oldest = oldestSnapshot();
+        return oldest < 0 ? Long.MAX_VALUE : snapshotTimes[oldest % snapshotCapacity];
+    }
+
+    /**
+     * @return the number of events still in the buffer.
+     */
+    public synchronized int size() {
+        return (int) Math.min(nextSeq, capacity);
+    }
+
+    private void append(long now, int event) {
+        int index = (int) (nextSeq % capacity);
+        eventTimes[index] = now;
+        events[index] = event;
+        nextSeq++;
+        apply(head, headEngine, now, event);
+        if (nextSeq % snapshotInterval == 0) {
+            takeSnapshot(now);
+        }
+    }
+
+    /**
+     * The same steps the presenter takes: the taps change, then the fill engine picks up the new flow.
+     */
+    private static void apply(Bathtub bathtub, FillEngine engine, long time, int event) {
+        int kind = event >>> KIND_SHIFT;
+        if (kind == KIND_TAP) {
+            Tap.Type type = TAP_TYPES[(event >>> TYPE_SHIFT) & 0xF];
+            bathtub.getTap(type).setTemperature((short) event);
+            bathtub.setTapOpen(type, (event & OPEN_BIT) != 0);
+        } else if (kind == KIND_BOILER) {
+            // Shifted up to the sign bit and back down, which sign-extends each 15 bit field.
+            setTemperature(bathtub, Tap.Type.HOT, (event << 2) >> (2 + WATER_BITS));
+            setTemperature(bathtub, Tap.Type.COLD, (event << (32 - WATER_BITS)) >> (32 - WATER_BITS));
+        }
+        engine.onTapsChanged(time);
+    }
+
+    private static void setTemperature(Bathtub bathtub, Tap.Type type, int temperature) {
+        Tap tap = bathtub.getTap(type);
+        if (tap != null) {
+            tap.setTemperature(temperature);
+        }
+    }
+
+    private void takeSnapshot(long now) {
+        int slot = snapshots % snapshotCapacity;
+        snapshotTimes[slot] = now;
+        snapshotSeqs[slot] = nextSeq;
+        snapshotVolumes[slot] = head.getVolume();
+        snapshotHeats[slot] = head.getHeat();
+        snapshotOpenTaps[slot] = head.getOpenTaps();
+        for (Tap.Type type : TAP_TYPES) {
+            Tap tap = head.getTap(type);
+            snapshotTemperatures[slot * TAP_TYPES.length + type.ordinal()] = tap != null ? tap.getTemperature() : 0;
+        }
+        snapshots++;
+    }
+
+    private int latestSnapshotAt(long time) {
+        int oldest = oldestSnapshot();
+        if (oldest < 0) {
+            return -1;
+        }
+        for (int snapshot = snapshots - 1; snapshot >= oldest; snapshot--) {
+            if (snapshotTimes[snapshot % snapshotCapacity] <= time) {
+                return snapshot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the oldest snapshot whose following events are all still in the buffer, or -1.
+     */
+    private int oldestSnapshot() {
+        long oldestSeq = Math.max(0, nextSeq - capacity);
+        for (int snapshot = Math.max(0, snapshots - snapshotCapacity); snapshot < snapshots; snapshot++) {
+            if (snapshotSeqs[snapshot % snapshotCapacity] >= oldestSeq) {
+                return snapshot;
+            }
+        }
+        return -1;
+    }
+
+    private void applyFlowRates(Bathtub bathtub) {
+        for (Tap tap : bathtub.getTaps()) {
+            tap.setFlowRate(flowRates[tap.getType().ordinal()]);
+        }
+    }
+
+    private static int encodeTap(Tap.Type type, boolean open, int temperature) {
+        int clamped = clamp(temperature, Short.MIN_VALUE, Short.MAX_VALUE);
+        return KIND_TAP << KIND_SHIFT | (open ? OPEN_BIT : 0) | type.ordinal() << TYPE_SHIFT | (clamped & 0xFFFF);
+    }
+
+    private static int encodeBoiler(int hotWater, int coldWater) {
+        int hot = clamp(hotWater, WATER_MIN, WATER_MAX);
+        int cold = clamp(coldWater, WATER_MIN, WATER_MAX);
+        return KIND_BOILER << KIND_SHIFT | (hot & WATER_MASK) << WATER_BITS | (cold & WATER_MASK);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -1,7 +1,13 @@
 package com.tae.bathtub.di.component;
 
 import com.tae.bathtub.data.api.BathTubService;
+import com.tae.bathtub.data.api.BoilerTelemetryClient;
+import com.tae.bathtub.data.api.NetworkPrewarmer;
+import com.tae.bathtub.data.cache.BoilerCache;
+import com.tae.bathtub.data.local.SessionStore;
 import com.tae.bathtub.di.modules.ApplicationModule;
+import com.tae.bathtub.metrics.MetricsRegistry;
+import com.tae.bathtub.metrics.Tracer;
 
 import javax.inject.Singleton;
 
@@ -14,4 +20,10 @@ import dagger.Component;
 @Component(modules = {ApplicationModule.class, NetworkModule.class})
 public interface ApplicationComponent {
     BathTubService getBathTubService();
+    BoilerTelemetryClient getBoilerTelemetryClient();
+    BoilerCache getBoilerCache();
+    MetricsRegistry getMetricsRegistry();
+    Tracer getTracer();
+    SessionStore getSessionStore();
+    NetworkPrewarmer getNetworkPrewarmer();
 }
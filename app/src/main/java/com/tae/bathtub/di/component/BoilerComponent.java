@@ -8,6 +8,9 @@ import dagger.Component;
 
 /**
  * Created by Eduardo on 18/04/2016.
+ *
+ * Kept by {@link MainActivity} as its non configuration instance, so a rotation reuses the
+ * presenter, its simulation and any boiler request still in flight.
  */
 @ActivityScope
 @Component(modules = BoilerModule.class, dependencies = ApplicationComponent.class)
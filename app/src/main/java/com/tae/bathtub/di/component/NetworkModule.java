@@ -1,16 +1,32 @@
 package com.tae.bathtub.di.component;
 
+import android.content.Context;
+
 import com.google.gson.FieldNamingPolicy;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.tae.bathtub.BuildConfig;
 import com.tae.bathtub.data.api.BathTubService;
+import com.tae.bathtub.data.api.BoilerConverterFactory;
+import com.tae.bathtub.data.api.BoilerTelemetryClient;
+import com.tae.bathtub.data.api.HttpTransport;
+import com.tae.bathtub.data.api.MetricsInterceptor;
 import com.tae.bathtub.data.api.NetworkConstants;
+import com.tae.bathtub.data.cache.BoilerCache;
+import com.tae.bathtub.metrics.MetricsRegistry;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -33,10 +49,12 @@ public class NetworkModule {
 
     @Singleton
     @Provides
-    Retrofit providesRetrofit(OkHttpClient client, Gson gson, RxJavaCallAdapterFactory rxJavaCallAdapter) {
+    Retrofit providesRetrofit(OkHttpClient client, Gson gson, RxJavaCallAdapterFactory rxJavaCallAdapter,
+                              BoilerConverterFactory boilerConverter) {
         return new Retrofit.Builder()
                 .baseUrl(NetworkConstants.BASE_URL)
                 .client(client)
+                .addConverterFactory(boilerConverter)
                 .addConverterFactory(GsonConverterFactory.create(gson))
                 .addCallAdapterFactory(rxJavaCallAdapter)
                 .build();
@@ -44,8 +62,68 @@ public class NetworkModule {
 
     @Singleton
     @Provides
-    OkHttpClient providesOkHttpClient(HttpLoggingInterceptor interceptor) {
-        return new OkHttpClient.Builder().addInterceptor(interceptor).build();
+    OkHttpClient providesOkHttpClient(HttpLoggingInterceptor interceptor, MetricsInterceptor metricsInterceptor,
+                                      MetricsRegistry registry, Cache cache, ConnectionPool pool,
+                                      Dispatcher dispatcher) {
+        return HttpTransport.newClientBuilder(pool, dispatcher, registry)
+                .addInterceptor(metricsInterceptor)
+                .addInterceptor(interceptor)
+                .cache(cache)
+                .build();
+    }
+
+    /**
+     * Shares the pool and dispatcher of the boiler client but not its logging, body logging would
+     * wait for a stream that never ends.
+     */
+    @Singleton
+    @Provides
+    BoilerTelemetryClient providesBoilerTelemetryClient(MetricsInterceptor metricsInterceptor, MetricsRegistry registry,
+                                                        ConnectionPool pool, Dispatcher dispatcher) {
+        OkHttpClient client = HttpTransport.newClientBuilder(pool, dispatcher, registry)
+                .addInterceptor(metricsInterceptor)
+                .readTimeout(NetworkConstants.TELEMETRY_READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .build();
+        return new BoilerTelemetryClient(client,
+                HttpUrl.parse(NetworkConstants.BASE_URL).resolve(NetworkConstants.BOILER_TELEMETRY_END_POINT),
+                NetworkConstants.TELEMETRY_INITIAL_BACKOFF_SECONDS, NetworkConstants.TELEMETRY_MAX_BACKOFF_SECONDS,
+                TimeUnit.SECONDS, Schedulers.io(), Schedulers.computation());
+    }
+
+    @Singleton
+    @Provides
+    ConnectionPool providesConnectionPool() {
+        return HttpTransport.newConnectionPool();
+    }
+
+    @Singleton
+    @Provides
+    Dispatcher providesDispatcher() {
+        return HttpTransport.newDispatcher();
+    }
+
+    @Singleton
+    @Provides
+    MetricsRegistry providesMetricsRegistry() {
+        return new MetricsRegistry();
+    }
+
+    @Singleton
+    @Provides
+    MetricsInterceptor providesMetricsInterceptor(MetricsRegistry registry) {
+        return new MetricsInterceptor(registry);
+    }
+
+    @Singleton
+    @Provides
+    Cache providesHttpCache(Context context) {
+        return new Cache(new File(context.getCacheDir(), NetworkConstants.HTTP_CACHE_DIR), NetworkConstants.HTTP_CACHE_SIZE);
+    }
+
+    @Singleton
+    @Provides
+    BoilerCache providesBoilerCache() {
+        return new BoilerCache(NetworkConstants.BOILER_CACHE_TTL_MINUTES, TimeUnit.MINUTES);
     }
 
     @Singleton
@@ -60,7 +138,8 @@ public class NetworkModule {
     @Provides
     HttpLoggingInterceptor providesHttpLoggingInterceptor() {
         HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor();
-        interceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+        // Body logging buffers every response, release builds skip it.
+        interceptor.setLevel(BuildConfig.DEBUG ? HttpLoggingInterceptor.Level.BODY : HttpLoggingInterceptor.Level.NONE);
         return interceptor;
     }
 
@@ -4,6 +4,14 @@ import android.app.Application;
 import android.content.Context;
 
 import com.tae.bathtub.App;
+import com.tae.bathtub.BuildConfig;
+import com.tae.bathtub.data.local.SessionStore;
+import com.tae.bathtub.metrics.MetricsRegistry;
+import com.tae.bathtub.metrics.Tracer;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.inject.Singleton;
 
@@ -21,4 +29,22 @@ public class ApplicationModule {
     Context provideContext() {
         return App.getInstance();
     }
+
+    @Singleton
+    @Provides
+    Tracer providesTracer(MetricsRegistry registry) {
+        return BuildConfig.DEBUG ? new Tracer(registry) : Tracer.DISABLED;
+    }
+
+    @Singleton
+    @Provides
+    SessionStore providesSessionStore(Context context, Tracer tracer) {
+        return new SessionStore(new File(context.getFilesDir(), "session.bin"),
+                Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        return new Thread(runnable, "session-writer");
+                    }
+                }), tracer);
+    }
 }
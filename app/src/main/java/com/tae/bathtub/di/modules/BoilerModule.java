@@ -1,43 +1,85 @@
 package com.tae.bathtub.di.modules;
 
+import com.tae.bathtub.data.api.NetworkConstants;
+import com.tae.bathtub.data.local.TapHistory;
 import com.tae.bathtub.di.ActivityScope;
-import com.tae.bathtub.presentation.BathtubView;
 import com.tae.bathtub.domain.interactor.BoilerInteractor;
 import com.tae.bathtub.domain.interactor.BoilerInteractorImpl;
+import com.tae.bathtub.domain.interactor.CircuitBreaker;
+import com.tae.bathtub.domain.interactor.RetryPolicy;
 import com.tae.bathtub.domain.presenter.BoilerPresenter;
 import com.tae.bathtub.domain.presenter.BoilerPresenterImpl;
+import com.tae.bathtub.domain.scheduler.AppSchedulerProvider;
+import com.tae.bathtub.domain.scheduler.SchedulerProvider;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import dagger.Module;
 import dagger.Provides;
 
 /**
  * Created by Eduardo on 18/04/2016.
+ *
+ * Everything here is retained across configuration changes, nothing may hold on to the activity.
+ * The view is attached to the presenter instead of being provided.
  */
 @Module
 public class BoilerModule {
 
-    private BathtubView view;
+    @ActivityScope
+    @Provides
+    BoilerPresenter providesBoilerPresenter(BoilerPresenterImpl presenter) {
+        return presenter;
+    }
 
-    public BoilerModule(BathtubView view) {
-        this.view = view;
+    @ActivityScope
+    @Provides
+    BoilerInteractor providesBoilerInteractor(BoilerInteractorImpl interactor) {
+        return interactor;
     }
 
     @ActivityScope
     @Provides
-    BathtubView providesBathtubView() {
-        return view;
+    ExecutorService providesSimulationExecutor() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "bathtub-simulation");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 
     @ActivityScope
     @Provides
-    BoilerPresenter providesBoilerPresenter(BoilerPresenterImpl presenter) {
-        return presenter;
+    SchedulerProvider providesSchedulerProvider(ExecutorService simulationExecutor) {
+        return new AppSchedulerProvider(simulationExecutor);
     }
 
     @ActivityScope
     @Provides
-    BoilerInteractor providesBoilerInteractor(BoilerInteractorImpl interactor) {
-        return interactor;
+    TapHistory providesTapHistory() {
+        return new TapHistory(TapHistory.DEFAULT_CAPACITY, TapHistory.DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    @ActivityScope
+    @Provides
+    RetryPolicy providesRetryPolicy() {
+        return new RetryPolicy(NetworkConstants.BOILER_CALL_DEADLINE_MILLIS, NetworkConstants.BOILER_MAX_RETRIES,
+                NetworkConstants.BOILER_RETRY_BASE_DELAY_MILLIS, NetworkConstants.BOILER_RETRY_MAX_DELAY_MILLIS,
+                TimeUnit.MILLISECONDS, new Random());
+    }
+
+    @ActivityScope
+    @Provides
+    CircuitBreaker providesCircuitBreaker(SchedulerProvider schedulers) {
+        return new CircuitBreaker(NetworkConstants.BOILER_BREAKER_FAILURE_THRESHOLD,
+                NetworkConstants.BOILER_BREAKER_OPEN_MILLIS, TimeUnit.MILLISECONDS, schedulers.computation());
     }
 
 }
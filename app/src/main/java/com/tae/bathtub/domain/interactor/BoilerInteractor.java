@@ -9,9 +9,14 @@ import com.tae.bathtub.data.api.model.ErrorResponse;
 
 import org.json.JSONObject;
 
+import rx.Subscription;
+
 /**
  * Created by Eduardo on 18/04/2016.
  */
 public interface BoilerInteractor {
     void getBoiler(ServiceCallback<Boiler, ErrorResponse> callback);
+    void restoreBoiler(Boiler boiler, long ageMillis);
+    long getBoilerAgeMillis(Boiler boiler);
+    Subscription watchBoiler(ServiceCallback<Boiler, ErrorResponse> callback);
 }
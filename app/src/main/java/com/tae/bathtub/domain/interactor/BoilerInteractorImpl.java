@@ -1,112 +1,260 @@
 package com.tae.bathtub.domain.interactor;
 
-import android.os.AsyncTask;
 import android.util.Log;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.stream.JsonReader;
 import com.tae.bathtub.data.api.BathTubService;
+import com.tae.bathtub.data.api.BoilerTelemetryClient;
 import com.tae.bathtub.data.api.ServiceCallback;
 import com.tae.bathtub.data.api.model.Boiler;
 import com.tae.bathtub.data.api.model.ErrorResponse;
+import com.tae.bathtub.data.cache.BoilerCache;
+import com.tae.bathtub.domain.scheduler.SchedulerProvider;
+import com.tae.bathtub.metrics.MetricsRegistry;
 
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.inject.Inject;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import dagger.Lazy;
+import okhttp3.CacheControl;
 import rx.Observable;
 import rx.Observer;
 import rx.Subscription;
-import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Action1;
+import rx.functions.Func0;
 import rx.functions.Func1;
-import rx.schedulers.Schedulers;
+import rx.subjects.AsyncSubject;
 
 /**
  * Created by Eduardo on 18/04/2016.
  */
 public class BoilerInteractorImpl implements BoilerInteractor {
 
+    // max-age=0 makes OkHttp treat its disk copy as stale and send a conditional request.
+    private static final String REVALIDATE = new CacheControl.Builder().maxAge(0, TimeUnit.SECONDS).build().toString();
+    private static final String CACHE_ONLY = CacheControl.FORCE_CACHE.toString();
+
+    public static final String SUCCESS = "boiler.success";
+    public static final String RETRIES = "boiler.retries";
+    public static final String TIMEOUTS = "boiler.timeouts";
+    public static final String FAILURES = "boiler.failures";
+    public static final String SHORT_CIRCUITS = "boiler.short_circuits";
+    public static final String FALLBACKS = "boiler.fallbacks";
+
+    // Building the network stack is the most expensive part of the graph, a fresh cache never needs it.
+    @Inject
+    Lazy<BathTubService> service;
+    @Inject
+    Lazy<BoilerTelemetryClient> telemetry;
+    @Inject
+    BoilerCache cache;
+    @Inject
+    SchedulerProvider schedulers;
     @Inject
-    BathTubService service;
+    RetryPolicy retryPolicy;
+    @Inject
+    CircuitBreaker circuitBreaker;
+    @Inject
+    MetricsRegistry registry;
+
+    private AsyncSubject<Boiler> boilerRequest;
 
     @Inject
     public BoilerInteractorImpl() {
     }
 
+    /**
+     * Seeds the cache with a boiler from a saved session, if it is still fresh no request is made.
+     */
+    @Override
+    public void restoreBoiler(Boiler boiler, long ageMillis) {
+        cache.put(boiler, ageMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Only boilers from the server reach the memory cache, a fallback from the disk cache or
+     * {@link Boiler#DEFAULT} has no known age and must not be restored as fresh.
+     *
+     * @return how long ago {@code boiler} came from the server, or {@link Long#MAX_VALUE} if unknown.
+     */
+    @Override
+    public long getBoilerAgeMillis(Boiler boiler) {
+        return cache.getAge(boiler, TimeUnit.MILLISECONDS);
+    }
+
     @Override
     public void getBoiler(final ServiceCallback<Boiler, ErrorResponse> callback) {
-        // This was the initial approach using Retrofit, but as the JSON has missing the "" in the properties,
-        //the converter is returning a malforming json exception.
-        Observable<Boiler> boilerObservable = service.getBoiler();
-        boilerObservable.subscribeOn(Schedulers.newThread())
-                .observeOn(AndroidSchedulers.mainThread())
+        boilers().observeOn(schedulers.mainThread())
                 .subscribe(new Observer<Boiler>() {
+                    private boolean delivered;
+
                     @Override
                     public void onCompleted() {
                     }
 
                     @Override
                     public void onError(Throwable e) {
-                        callback.onServiceError(new ErrorResponse(e.getMessage()));
                         Log.i("ERROR", "onError: ", e);
+                        if (!delivered) {
+                            callback.onServiceError(new ErrorResponse(e.getMessage()));
+                        }
                     }
 
                     @Override
                     public void onNext(Boiler boiler) {
+                        delivered = true;
                         callback.onServiceResponse(boiler);
                         Log.i("SUCCESS", "onNext: ");
                     }
                 });
+    }
+
+    /**
+     * Pushes every boiler update from the telemetry stream until unsubscribed, each one also
+     * refreshes the cache. The stream reconnects on its own, the callback only hears about an error
+     * if the server has no telemetry at all.
+     */
+    @Override
+    public Subscription watchBoiler(final ServiceCallback<Boiler, ErrorResponse> callback) {
+        return telemetry.get().getBoilerUpdates()
+                .doOnNext(new Action1<Boiler>() {
+                    @Override
+                    public void call(Boiler boiler) {
+                        cache.put(boiler);
+                    }
+                })
+                .distinctUntilChanged()
+                .onBackpressureLatest()
+                .observeOn(schedulers.mainThread())
+                .subscribe(new Observer<Boiler>() {
+                    @Override
+                    public void onCompleted() {
+                    }
 
-        //This is the second approach, a dirty Asynctask with an HttpUrlConection. No rotation handled, screen locked.
-        new AsyncTask<Void, Void, Void>() {
+                    @Override
+                    public void onError(Throwable e) {
+                        Log.i("TELEMETRY", "onError: ", e);
+                        callback.onServiceError(new ErrorResponse(e.getMessage()));
+                    }
+
+                    @Override
+                    public void onNext(Boiler boiler) {
+                        callback.onServiceResponse(boiler);
+                    }
+                });
+    }
+
+    /**
+     * Whatever is cached goes out first, the network only runs once the TTL has expired. Completes
+     * once the revalidation, if any, has finished.
+     */
+    Observable<Boiler> boilers() {
+        Boiler cached = cache.get();
+        Observable<Boiler> boilers;
+        if (cached == null) {
+            boilers = Observable.concat(readDiskCache(), requestBoiler());
+        } else if (cache.isFresh()) {
+            boilers = Observable.just(cached);
+        } else {
+            boilers = Observable.concat(Observable.just(cached), requestBoiler());
+        }
+        return boilers.distinctUntilChanged();
+    }
+
+    private Observable<Boiler> readDiskCache() {
+        return service.get().getBoiler(CACHE_ONLY).onErrorResumeNext(Observable.<Boiler>empty());
+    }
+
+    /**
+     * Revalidates against the server, each attempt within the policy's deadline and retried with
+     * backoff. When the server keeps failing, or the circuit breaker has given up on it for now, the
+     * last known boiler is served instead: from memory, from the disk cache or {@link Boiler#DEFAULT}.
+     */
+    private Observable<Boiler> revalidate() {
+        return Observable.defer(new Func0<Observable<Boiler>>() {
             @Override
-            protected Void doInBackground(Void... params) {
-                HttpURLConnection urlConnection;
-                try {
-                    URL url = new URL("http://static.content.akqa.net/mobile-test/bath.json");
-                    urlConnection = (HttpURLConnection) url.openConnection();
-                    urlConnection.connect();
-                    int status = urlConnection.getResponseCode();
-                    switch (status) {
-                        case 200:
-                        case 201:
-                            InputStreamReader isr = new InputStreamReader(urlConnection.getInputStream());
-                            BufferedReader br = new BufferedReader(isr);
-                            StringBuilder sb = new StringBuilder();
-                            String line;
-                            while ((line = br.readLine()) != null) {
-                                sb.append(line).append("\n");
+            public Observable<Boiler> call() {
+                if (!circuitBreaker.allowRequest()) {
+                    registry.counter(SHORT_CIRCUITS).increment();
+                    return fallback();
+                }
+                return service.get().getBoiler(REVALIDATE)
+                        .timeout(retryPolicy.getDeadlineMillis(), TimeUnit.MILLISECONDS, schedulers.computation())
+                        .doOnError(new Action1<Throwable>() {
+                            @Override
+                            public void call(Throwable error) {
+                                if (error instanceof TimeoutException) {
+                                    registry.counter(TIMEOUTS).increment();
+                                }
                             }
-                            br.close();
-                            Gson gson = new Gson();
-                            Boiler boiler = gson.fromJson(sb.toString(), Boiler.class);
-                            callback.onServiceResponse(boiler);
-                            break;
-                        case 401:
-                            callback.onServiceError(new ErrorResponse("Forbidden"));
-                            break;
-                        case 503:
-                            callback.onServiceError(new ErrorResponse("Server Error"));
-                            break;
-                    }
-                } catch (IOException e1) {
-                    e1.printStackTrace();
-            }
-                return null;
+                        })
+                        .retryWhen(retryPolicy.retries(schedulers.computation(), registry.counter(RETRIES)))
+                        .doOnNext(new Action1<Boiler>() {
+                            @Override
+                            public void call(Boiler boiler) {
+                                circuitBreaker.onSuccess();
+                                registry.counter(SUCCESS).increment();
+                                cache.put(boiler);
+                            }
+                        })
+                        .onErrorResumeNext(new Func1<Throwable, Observable<Boiler>>() {
+                            @Override
+                            public Observable<Boiler> call(Throwable error) {
+                                Log.i("ERROR", "revalidate: ", error);
+                                circuitBreaker.onFailure();
+                                registry.counter(FAILURES).increment();
+                                return fallback();
+                            }
+                        });
             }
-        }.execute();
+        });
+    }
+
+    private Observable<Boiler> fallback() {
+        registry.counter(FALLBACKS).increment();
+        Boiler cached = cache.get();
+        if (cached != null) {
+            return Observable.just(cached);
+        }
+        return service.get().getBoiler(CACHE_ONLY).onErrorResumeNext(Observable.just(Boiler.DEFAULT));
+    }
+
+    /**
+     * Callers arriving while a request is in flight join it instead of starting a new one,
+     * every one of them gets the same result. Once the request terminates the next call fetches again.
+     */
+    private synchronized Observable<Boiler> requestBoiler() {
+        if (boilerRequest == null) {
+            final AsyncSubject<Boiler> request = AsyncSubject.create();
+            boilerRequest = request;
+            revalidate().subscribe(new Observer<Boiler>() {
+                @Override
+                public void onCompleted() {
+                    // Released first, so a caller woken by the result starts a fresh request.
+                    release(request);
+                    request.onCompleted();
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    release(request);
+                    request.onError(e);
+                }
+
+                @Override
+                public void onNext(Boiler boiler) {
+                    request.onNext(boiler);
+                }
+            });
+            return request;
+        }
+        return boilerRequest;
+    }
+
+    private synchronized void release(AsyncSubject<Boiler> request) {
+        if (boilerRequest == request) {
+            boilerRequest = null;
+        }
     }
 }
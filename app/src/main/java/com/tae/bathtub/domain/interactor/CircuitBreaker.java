@@ -0,0 +1,67 @@
+package com.tae.bathtub.domain.interactor;
+
+import java.util.concurrent.TimeUnit;
+
+import rx.Scheduler;
+
+/**
+ * Stops calling a failing endpoint for a while. After {@code failureThreshold} failed calls in a row
+ * the breaker opens and rejects every call until {@code openDuration} has passed. Then a single trial
+ * call goes through: success closes the breaker, failure opens it again.
+ *
+ * Thread safe, time is read from the given scheduler.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final Scheduler clock;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit, Scheduler clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = unit.toMillis(openDuration);
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if the call may go ahead, it must then report {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case OPEN:
+                if (clock.now() - openedAt < openDurationMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                return true;
+            case HALF_OPEN:
+                // The trial call is still out.
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.now();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
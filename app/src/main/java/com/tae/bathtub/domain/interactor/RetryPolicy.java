@@ -0,0 +1,80 @@
+package com.tae.bathtub.domain.interactor;
+
+import com.tae.bathtub.metrics.Counter;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import retrofit2.adapter.rxjava.HttpException;
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Func1;
+
+/**
+ * Deadline and retries of one boiler call. Every attempt gets {@code deadline} to answer. A timeout,
+ * a network error or a 5xx is retried up to {@code maxRetries} times with exponential backoff. Each
+ * delay is drawn between half and all of the backoff, so clients failing together do not retry in
+ * lockstep.
+ */
+public class RetryPolicy {
+
+    private final long deadlineMillis;
+    private final int maxRetries;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Random random;
+
+    public RetryPolicy(long deadline, int maxRetries, long baseDelay, long maxDelay, TimeUnit unit, Random random) {
+        this.deadlineMillis = unit.toMillis(deadline);
+        this.maxRetries = maxRetries;
+        this.baseDelayMillis = unit.toMillis(baseDelay);
+        this.maxDelayMillis = unit.toMillis(maxDelay);
+        this.random = random;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    /**
+     * @return the delay before retry number {@code retry}, counting from zero.
+     */
+    public long delayFor(int retry) {
+        long backoff = Math.min(maxDelayMillis, baseDelayMillis << Math.min(retry, 30));
+        long half = backoff / 2;
+        synchronized (random) {
+            return half + (long) (random.nextDouble() * (backoff - half));
+        }
+    }
+
+    public static boolean isRetryable(Throwable error) {
+        if (error instanceof HttpException) {
+            return ((HttpException) error).code() >= 500;
+        }
+        return error instanceof IOException || error instanceof TimeoutException;
+    }
+
+    /**
+     * @return a {@code retryWhen} handler applying this policy, counting every retry in {@code retries}.
+     */
+    public Func1<Observable<? extends Throwable>, Observable<?>> retries(final Scheduler scheduler, final Counter retries) {
+        return new Func1<Observable<? extends Throwable>, Observable<?>>() {
+            @Override
+            public Observable<?> call(Observable<? extends Throwable> errors) {
+                final int[] attempt = {0};
+                return errors.flatMap(new Func1<Throwable, Observable<Long>>() {
+                    @Override
+                    public Observable<Long> call(Throwable error) {
+                        if (attempt[0] >= maxRetries || !isRetryable(error)) {
+                            return Observable.error(error);
+                        }
+                        retries.increment();
+                        return Observable.timer(delayFor(attempt[0]++), TimeUnit.MILLISECONDS, scheduler);
+                    }
+                });
+            }
+        };
+    }
+}
@@ -5,8 +5,10 @@ import com.tae.bathtub.data.api.model.Boiler;
 import com.tae.bathtub.data.api.model.ErrorResponse;
 import com.tae.bathtub.data.local.Bathtub;
 import com.tae.bathtub.data.local.Tap;
+import com.tae.bathtub.data.local.TapHistory;
+import com.tae.bathtub.presentation.BathtubView;
 
-import java.util.List;
+import rx.Observable;
 
 /**
  * Created by Eduardo on 18/04/2016.
@@ -14,12 +16,18 @@ import java.util.List;
 public interface BoilerPresenter {
 
     void initBoilerService();
+    void watchBoiler();
     int getHotWater();
     int getColdWater();
+    Observable<Boolean> boilerReady();
     String getServiceError(String error);
-    void unSubscribeSingleTap();
-    void openBothTaps();
-    void openSingleTap(Tap tap);
-    void unSubscribeTaps();
+    void toggleTap(Tap.Type type);
     void getBathtub(Bathtub bathtub);
+    Bathtub getCurrentBathtub();
+    TapHistory getTapHistory();
+    void attachView(BathtubView view);
+    void detachView();
+    Bathtub restoreSession();
+    void saveSession();
+    void release();
 }
@@ -1,42 +1,75 @@
 package com.tae.bathtub.domain.presenter;
 
-import android.os.Handler;
 import android.util.Log;
 
 import com.tae.bathtub.data.api.ServiceCallback;
 import com.tae.bathtub.data.api.model.Boiler;
 import com.tae.bathtub.data.api.model.ErrorResponse;
 import com.tae.bathtub.data.local.Bathtub;
+import com.tae.bathtub.data.local.FillEngine;
+import com.tae.bathtub.data.local.SessionSnapshot;
+import com.tae.bathtub.data.local.SessionStore;
 import com.tae.bathtub.data.local.Tap;
+import com.tae.bathtub.data.local.TapHistory;
 import com.tae.bathtub.domain.interactor.BoilerInteractor;
+import com.tae.bathtub.domain.scheduler.SchedulerProvider;
+import com.tae.bathtub.metrics.SimulationTrace;
 import com.tae.bathtub.presentation.BathtubView;
+import com.tae.bathtub.presentation.RenderState;
+import com.tae.bathtub.presentation.ViewUpdateBatcher;
 
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 
 import rx.Observable;
-import rx.Observer;
 import rx.Subscriber;
 import rx.Subscription;
-import rx.android.schedulers.AndroidSchedulers;
-import rx.functions.Func2;
-import rx.schedulers.Schedulers;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func1;
+import rx.subjects.BehaviorSubject;
+import rx.subjects.PublishSubject;
+import rx.subscriptions.CompositeSubscription;
 
 /**
  * Created by Eduardo on 18/04/2016.
+ *
+ * Outlives the activity across configuration changes, the simulation keeps running while the view
+ * is detached and the next attached view picks up the current bathtub.
  */
 public class BoilerPresenterImpl implements BoilerPresenter {
 
+    private static final int TICK_SECONDS = 3;
+    // Toggles closer together than this are coalesced into one flow change.
+    static final long TAP_DEBOUNCE_MILLIS = 150;
+
     @Inject
     BoilerInteractor interactor;
     @Inject
-    BathtubView view;
+    ViewUpdateBatcher viewUpdates;
+    @Inject
+    SchedulerProvider schedulers;
+    @Inject
+    SimulationTrace trace;
+    @Inject
+    ExecutorService simulationExecutor;
+    @Inject
+    SessionStore sessionStore;
+    @Inject
+    TapHistory history;
 
+    private final CompositeSubscription subscriptions = new CompositeSubscription();
+    private final PublishSubject<Integer> tapEvents = PublishSubject.create();
+    private final BehaviorSubject<Boolean> boilerReady = BehaviorSubject.create(false);
+    // Null until the first boiler lands, readers go through currentBoiler().
     private Boiler boiler;
+    private long boilerFetchedAt;
     private Bathtub bathtub;
-    private Subscription openTapSubscription;
-    private Subscription dobleTapSubscription;
+    private FillEngine fillEngine;
+    private Subscription tapSubscription;
 
     @Inject
     public BoilerPresenterImpl() {
@@ -47,24 +80,56 @@ public class BoilerPresenterImpl implements BoilerPresenter {
         interactor.getBoiler(new ServiceCallback<Boiler, ErrorResponse>() {
             @Override
             public void onServiceResponse(Boiler response) {
-                boiler = response;
+                onBoilerUpdate(response);
             }
 
             @Override
             public void onServiceError(ErrorResponse error) {
                 getServiceError(error.getError());
+                // Taps must not wait forever, they run on the default boiler instead.
+                onBoilerReady();
             }
         });
     }
 
+    /**
+     * Follows live boiler updates. The taps take on the new water temperatures as they arrive, the
+     * water already in the bathtub keeps the temperature it was poured at.
+     */
+    @Override
+    public void watchBoiler() {
+        subscriptions.add(interactor.watchBoiler(new ServiceCallback<Boiler, ErrorResponse>() {
+            @Override
+            public void onServiceResponse(Boiler response) {
+                onBoilerUpdate(response);
+            }
+
+            @Override
+            public void onServiceError(ErrorResponse error) {
+                getServiceError(error.getError());
+            }
+        }));
+    }
+
+    /**
+     * Never blocks and never fails, until the boiler lands the taps are given {@link Boiler#DEFAULT}.
+     */
     @Override
     public int getHotWater() {
-        return boiler.getHot_water();
+        return currentBoiler().getHot_water();
     }
 
     @Override
     public int getColdWater() {
-        return boiler.getCold_water();
+        return currentBoiler().getCold_water();
+    }
+
+    /**
+     * Emits the current readiness on subscribe, then true once the first boiler has landed.
+     */
+    @Override
+    public Observable<Boolean> boilerReady() {
+        return boilerReady.asObservable();
     }
 
     @Override
@@ -72,165 +137,323 @@ public class BoilerPresenterImpl implements BoilerPresenter {
         return error;
     }
 
+    /**
+     * The tap opens or closes at once and so does its flow, only restarting the clock and overflow
+     * timer waits for a burst of toggles to settle. Before the boiler has landed the flow is held
+     * back, the toggles collect in the bathtub's open taps and are replayed as one when it does.
+     */
     @Override
-    public void unSubscribeSingleTap() {
-        if (openTapSubscription != null &&!openTapSubscription.isUnsubscribed()) {
-            openTapSubscription.unsubscribe();
-            Log.i("CLOSE TAP", "unSubscribeSingleTap: tap is close!");
+    public void toggleTap(Tap.Type type) {
+        bathtub.setTapOpen(type, !bathtub.isTapOpen(type));
+        if (isBoilerReady()) {
+            long now = schedulers.simulation().now();
+            fillEngine.onTapsChanged(now);
+            history.recordTaps(now, bathtub);
         }
+        publishTaps();
     }
 
     @Override
-    public void openBothTaps() {
-        Observable<Long> tapCold = Observable.interval(3, TimeUnit.SECONDS);
-        Observable<Long> tapHot = Observable.interval(3, TimeUnit.SECONDS);
-        dobleTapSubscription = tapCold.zipWith(tapHot, new Func2<Long, Long, Integer>() {
-            @Override
-            public Integer call(Long intervalCold, Long intervalHot) {
-                Log.i("ZIP", "call: along1 " + intervalCold + " along2 " + intervalHot);
-                // TODO eacch observable should handle different behaviours between the tap. Untils that its hardcoded.
-                return 22; //10 cold 12 hot
-            }
-        }).subscribeOn(Schedulers.newThread())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(new Observer<Integer>() {
+    public void getBathtub(Bathtub bathtub) {
+        this.bathtub = bathtub;
+        long now = schedulers.simulation().now();
+        fillEngine = new FillEngine(bathtub, now);
+        history.reset(bathtub, now);
+        if (tapSubscription != null) {
+            subscriptions.remove(tapSubscription);
+        }
+        tapSubscription = subscribeToTapEvents();
+        subscriptions.add(tapSubscription);
+        if (bathtub.getLevel() > 0) {
+            // A restored bathtub is drawn as it was left, before the taps start moving it.
+            renderBathtub();
+        }
+        publishTaps();
+    }
+
+    @Override
+    public Bathtub getCurrentBathtub() {
+        return bathtub;
+    }
+
+    /**
+     * @return every flow change of the current fill, replayable to any moment of it.
+     */
+    @Override
+    public TapHistory getTapHistory() {
+        return history;
+    }
+
+    @Override
+    public void attachView(BathtubView view) {
+        if (bathtub != null) {
+            // A new view starts blank, it gets the whole bathtub rather than the last changes.
+            renderBathtub();
+        }
+        viewUpdates.attach(view);
+    }
+
+    @Override
+    public void detachView() {
+        viewUpdates.detach();
+    }
+
+    /**
+     * Reads the last saved session, handing its boiler to the interactor so a fresh one is not
+     * requested again. Runs on the calling thread, it is small enough for onCreate.
+     *
+     * @return the saved bathtub, or null if there was no session to restore or its bath was full.
+     */
+    @Override
+    public Bathtub restoreSession() {
+        SessionSnapshot snapshot = sessionStore.load();
+        if (snapshot == null) {
+            return null;
+        }
+        if (snapshot.getBoiler() != null) {
+            boiler = snapshot.getBoiler();
+            boilerFetchedAt = snapshot.getBoilerFetchedAt();
+            interactor.restoreBoiler(boiler, Math.max(0, System.currentTimeMillis() - boilerFetchedAt));
+            boilerReady.onNext(true);
+        }
+        if (snapshot.getBathtub().getLevel() >= Bathtub.MAX_CAPACITY) {
+            // A full bath keeps its taps disabled, restoring it would never let a new one start.
+            sessionStore.clear();
+            return null;
+        }
+        return snapshot.getBathtub();
+    }
+
+    /**
+     * Brings the bathtub up to date and saves it, the file is written off the main thread. A full
+     * bath is finished, it clears the session so the next start begins a new one.
+     */
+    @Override
+    public void saveSession() {
+        if (bathtub == null) {
+            return;
+        }
+        fillEngine.sample(schedulers.simulation().now());
+        if (bathtub.getLevel() >= Bathtub.MAX_CAPACITY) {
+            sessionStore.clear();
+            return;
+        }
+        sessionStore.save(new SessionSnapshot(bathtub, boiler, boilerFetchedAt));
+    }
+
+    @Override
+    public void release() {
+        subscriptions.clear();
+        viewUpdates.release();
+        simulationExecutor.shutdown();
+    }
+
+    /**
+     * Tap toggles arrive as open tap masks. A burst of toggles settles into one mask, and only a
+     * change of mask restarts the flow. switchMap drops the clock and overflow timer of the previous
+     * configuration before the next one starts, so rapid input never leaves timers running side by side.
+     */
+    private Subscription subscribeToTapEvents() {
+        return tapEvents
+                .debounce(TAP_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS, schedulers.simulation())
+                .observeOn(schedulers.mainThread())
+                .distinctUntilChanged()
+                .switchMap(new Func1<Integer, Observable<Boolean>>() {
+                    @Override
+                    public Observable<Boolean> call(Integer openTaps) {
+                        return applyTaps(openTaps);
+                    }
+                })
+                .subscribe(new Subscriber<Boolean>() {
                     @Override
                     public void onCompleted() {
-                        updateUiAfterComplete(dobleTapSubscription);
                     }
 
                     @Override
                     public void onError(Throwable e) {
-                        Log.e("DOBLE TAP ERROR", "onError: ", e);
+                        Log.e("TAP ERROR", "onError: ", e);
                     }
 
                     @Override
-                    public void onNext(final Integer waterLevel) {
-                        Log.i("DOBLE TAP NEXT", "onNext: waterlevel both taps");
-                        handleOnNext(waterLevel);
-                        if (bathtub.getLevel() >= Bathtub.MAX_CAPACITY) {
+                    public void onNext(Boolean full) {
+                        handleOnNext();
+                        if (full) {
                             updateUiWithWaterLevelOverflow();
-                            onCompleted();
+                            updateUiAfterComplete();
                         }
                     }
                 });
     }
 
-    @Override
-    public void openSingleTap(final Tap tap) {
-        Observable<Long> waterlevelObservable = Observable.interval(3, TimeUnit.SECONDS);
-        openTapSubscription = waterlevelObservable.subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(new Subscriber<Long>() {
+    /**
+     * Switches the fill engine to the taps in {@code openTaps} and returns the flow they produce: a
+     * tick every few seconds, ending with {@code true} when the bathtub is full.
+     */
+    private Observable<Boolean> applyTaps(int openTaps) {
+        long now = schedulers.simulation().now();
+        fillEngine.onTapsChanged(now);
+        history.recordTaps(now, bathtub);
+        if (openTaps == 0 || fillEngine.isFull(now)) {
+            Log.i("CLOSE TAPS", "All taps are closed!");
+            return Observable.empty();
+        }
+        // One clock drives the whole bathtub, the fill engine knows exactly when it overflows.
+        Observable<Boolean> ticks = Observable.interval(TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS, schedulers.simulation())
+                .map(new Func1<Long, Boolean>() {
                     @Override
-                    public void onCompleted() {
-                        updateUiAfterComplete(openTapSubscription);
+                    public Boolean call(Long tick) {
+                        return false;
                     }
-
+                });
+        Observable<Boolean> full = Observable.timer(Math.max(0, fillEngine.fullAt() - now), TimeUnit.MILLISECONDS,
+                schedulers.simulation())
+                .map(new Func1<Long, Boolean>() {
                     @Override
-                    public void onError(Throwable e) {
-                        Log.e("SINGLE TAP ERROR", "onError: ", e);
+                    public Boolean call(Long ignored) {
+                        return true;
                     }
-
+                });
+        // Ticks still queued for the main thread when the flow is dropped never arrive, they leave the backlog here.
+        final AtomicInteger queued = new AtomicInteger();
+        return Observable.merge(ticks, full)
+                .takeUntil(new Func1<Boolean, Boolean>() {
                     @Override
-                    public void onNext(Long interval) {
-                        int waterStream = getWaterStreamByTapType(tap);
-                        handleOnNext(waterStream);
-                        if (bathtub.getLevel() >= Bathtub.MAX_CAPACITY) {
-                            updateUiWithWaterLevelOverflow();
-                            onCompleted();
+                    public Boolean call(Boolean isFull) {
+                        return isFull;
+                    }
+                })
+                .onBackpressureDrop(new Action1<Boolean>() {
+                    @Override
+                    public void call(Boolean tick) {
+                        trace.droppedTicks().increment();
+                    }
+                })
+                .doOnNext(new Action1<Boolean>() {
+                    @Override
+                    public void call(Boolean tick) {
+                        queued.incrementAndGet();
+                        trace.backlog().enter();
+                    }
+                })
+                .observeOn(schedulers.mainThread())
+                .doOnNext(new Action1<Boolean>() {
+                    @Override
+                    public void call(Boolean tick) {
+                        queued.decrementAndGet();
+                        trace.backlog().exit();
+                    }
+                })
+                .doOnUnsubscribe(new Action0() {
+                    @Override
+                    public void call() {
+                        for (int dropped = queued.getAndSet(0); dropped > 0; dropped--) {
+                            trace.backlog().exit();
                         }
                     }
                 });
     }
 
-    @Override
-    public void unSubscribeTaps() {
-        if (dobleTapSubscription != null && !dobleTapSubscription.isUnsubscribed()) {
-            dobleTapSubscription.unsubscribe();
-            Log.i("CLOSE TAPS", "Both taps are closed!");
-        }
+    private void updateUiWithWaterLevelOverflow() {
+        viewUpdates.edit().setOverflow(bathtub.getLevel() >= Bathtub.MAX_CAPACITY);
+        viewUpdates.commit();
     }
 
-    @Override
-    public void getBathtub(Bathtub bathtub) {
-        this.bathtub = bathtub;
+    private void handleOnNext() {
+        long tickStart = trace.tick().begin();
+        long start = trace.sample().begin();
+        fillEngine.sample(schedulers.simulation().now());
+        trace.sample().end(start);
+
+        RenderState state = viewUpdates.edit();
+        start = trace.temperature().begin();
+        displayTemperature(state);
+        trace.temperature().end(start);
+        state.setLevel(convertIntToNegative());
+        viewUpdates.commit();
+        trace.tick().end(tickStart);
     }
 
-    private void updateUiWithWaterLevelOverflow() {
-        new Handler().post(new Runnable() {
-            @Override
-            public void run() {
-                view.waterLevelOverflow(bathtub.getLevel() >= Bathtub.MAX_CAPACITY);
-            }
-        });
+    private void onBoilerUpdate(Boiler update) {
+        boiler = update;
+        // A fallback keeps the age of the boiler it fell back to, a saved session must not make it fresh.
+        long age = interactor.getBoilerAgeMillis(update);
+        boilerFetchedAt = age == Long.MAX_VALUE ? 0 : System.currentTimeMillis() - age;
+        if (bathtub != null) {
+            bathtub.getTap(Tap.Type.COLD).setTemperature(update.getCold_water());
+            bathtub.getTap(Tap.Type.HOT).setTemperature(update.getHot_water());
+            // Flow rates are unchanged, so the running clock and overflow timer stay valid.
+            long now = schedulers.simulation().now();
+            fillEngine.onTapsChanged(now);
+            history.recordBoiler(now, update);
+            renderBathtub();
+        }
+        onBoilerReady();
     }
 
-    private int getWaterStreamByTapType(Tap tap) {
-        int waterStream;
-        if (tap.getType().equals(Tap.Type.COLD.name())) {
-            waterStream = 10;
-        } else {
-            waterStream = 12;
+    private void onBoilerReady() {
+        if (isBoilerReady()) {
+            return;
+        }
+        boilerReady.onNext(true);
+        if (bathtub != null) {
+            // Replays the toggles held back while there was no boiler.
+            publishTaps();
         }
-        return waterStream;
     }
 
-    private void handleOnNext(int waterStream) {
-        bathtub.setLevel(bathtub.getLevel() + waterStream);
-        calculateTemperature(bathtub);
-        view.increaseWaterLevel(convertIntToNegative());
+    private boolean isBoilerReady() {
+        return boilerReady.getValue();
     }
 
-    private void updateUiAfterComplete(Subscription subscription) {
-        subscription.unsubscribe();
-        Schedulers.shutdown();
-        new Handler().post(new Runnable() {
-            @Override
-            public void run() {
-                view.increaseWaterLevel(convertIntToNegative());
-                view.showToast("Bathub is full, taps are disabled, enjoy!");
-                view.setTemperatureIndicator(getIndicatorPosition(bathtub.getTemperature()));
-            }
-        });
+    private Boiler currentBoiler() {
+        return boiler != null ? boiler : Boiler.DEFAULT;
     }
 
-    private void calculateTemperature(Bathtub bathtub) {
-        int temp = 0;
-        if (bathtub.areTwoTapsOpen(bathtub.getTaps())) {
-            temp = bathtub.getTemperatureFromTaps(getColdWater(), getHotWater());
-        } else {
-            for (Tap tap : bathtub.getTaps()) {
-                if (tap.isOpen()) {
-                    if (tap.getType().equals(Tap.Type.COLD.name())) {
-                        temp = getColdWater();
-                    } else {
-                        temp = getHotWater();
-                    }
-                }
-            }
+    private void publishTaps() {
+        if (isBoilerReady()) {
+            tapEvents.onNext(bathtub.getOpenTaps());
+        }
+    }
+
+    private void renderBathtub() {
+        if (fillEngine != null) {
+            fillEngine.sample(schedulers.simulation().now());
         }
-        if (temp > 0) {
-            bathtub.setTemperature(temp);
-            view.displayTemperature(temp);
-            view.setTemperatureIndicator(getIndicatorPosition(temp));
+        RenderState state = viewUpdates.edit();
+        displayTemperature(state);
+        state.setLevel(convertIntToNegative());
+        state.setOverflow(bathtub.getLevel() >= Bathtub.MAX_CAPACITY);
+        viewUpdates.commit();
+    }
+
+    private void updateUiAfterComplete() {
+        RenderState state = viewUpdates.edit();
+        state.setLevel(convertIntToNegative());
+        state.setMessage("Bathub is full, taps are disabled, enjoy!");
+        state.setIndicatorPosition(getIndicatorPosition(bathtub.getTemperature()));
+        viewUpdates.commit();
+    }
+
+    private void displayTemperature(RenderState state) {
+        if (bathtub.getLevel() > 0) {
+            int temp = bathtub.getTemperature();
+            state.setTemperature(temp);
+            state.setIndicatorPosition(getIndicatorPosition(temp));
         }
     }
 
+    /**
+     * Interpolates between the dial positions drawn for cold (10), mixed (30) and hot (50) water.
+     */
     private float getIndicatorPosition(int temp) {
-        float indicator = 0;
-        switch (temp) {
-            case 10:
-                indicator = -45;
-                break;
-            case 50:
-                indicator = 45;
-                break;
-            case 30:
-                indicator = 25;
-                break;
-        }
-        return indicator;
+        if (temp <= 10) {
+            return -45;
+        } else if (temp <= 30) {
+            return -45 + (temp - 10) * 70 / 20f;
+        } else if (temp <= 50) {
+            return 25 + (temp - 30);
+        }
+        return 45;
     }
 
     private int convertIntToNegative() {
@@ -0,0 +1,34 @@
+package com.tae.bathtub.domain.scheduler;
+
+import java.util.concurrent.ExecutorService;
+
+import rx.Scheduler;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.schedulers.Schedulers;
+
+/**
+ * Runs the simulation on the executor owned by the current screen and delivers on the Android main thread.
+ */
+public class AppSchedulerProvider implements SchedulerProvider {
+
+    private final Scheduler simulation;
+
+    public AppSchedulerProvider(ExecutorService simulationExecutor) {
+        this.simulation = Schedulers.from(simulationExecutor);
+    }
+
+    @Override
+    public Scheduler mainThread() {
+        return AndroidSchedulers.mainThread();
+    }
+
+    @Override
+    public Scheduler simulation() {
+        return simulation;
+    }
+
+    @Override
+    public Scheduler computation() {
+        return Schedulers.computation();
+    }
+}
@@ -0,0 +1,24 @@
+package com.tae.bathtub.domain.scheduler;
+
+import rx.Scheduler;
+
+/**
+ * Every scheduler the domain layer runs on, so tests can swap them for virtual time.
+ */
+public interface SchedulerProvider {
+
+    /**
+     * @return the scheduler delivering results to the view.
+     */
+    Scheduler mainThread();
+
+    /**
+     * @return the scheduler driving the fill simulation clock.
+     */
+    Scheduler simulation();
+
+    /**
+     * @return the scheduler timing deadlines, retry delays and circuit breaker cool downs.
+     */
+    Scheduler computation();
+}
@@ -0,0 +1,28 @@
+package com.tae.bathtub.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic count of events, safe to update from any thread.
+ */
+public class Counter {
+
+    private final AtomicLong count = new AtomicLong();
+
+    public void increment() {
+        count.incrementAndGet();
+    }
+
+    public void add(long amount) {
+        count.addAndGet(amount);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(getCount());
+    }
+}
@@ -0,0 +1,48 @@
+package com.tae.bathtub.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Current value of something that goes up and down, such as a queue depth, plus the highest value
+ * it has reached.
+ */
+public class Gauge {
+
+    private final AtomicLong value = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void increment() {
+        updateMax(value.incrementAndGet());
+    }
+
+    public void decrement() {
+        value.decrementAndGet();
+    }
+
+    public void set(long newValue) {
+        value.set(newValue);
+        updateMax(newValue);
+    }
+
+    public long getValue() {
+        return value.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    private void updateMax(long candidate) {
+        long current;
+        while (candidate > (current = max.get())) {
+            if (max.compareAndSet(current, candidate)) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "value=" + getValue() + " max=" + getMax();
+    }
+}
@@ -0,0 +1,82 @@
+package com.tae.bathtub.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed bucket histogram, safe to update from any thread. Recording is a binary search over the
+ * bucket bounds and a couple of atomic adds, nothing is allocated.
+ */
+public class Histogram {
+
+    // Upper bounds in milliseconds, values above the last one land in an overflow bucket.
+    static final long[] LATENCY_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    private final long[] bounds;
+    private final AtomicLongArray buckets;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public Histogram(long[] bounds) {
+        this.bounds = bounds.clone();
+        this.buckets = new AtomicLongArray(bounds.length + 1);
+    }
+
+    public void record(long value) {
+        int index = Arrays.binarySearch(bounds, value);
+        buckets.incrementAndGet(index >= 0 ? index : -index - 1);
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the given percentile, or the max once it falls
+     * into the overflow bucket.
+     */
+    public long getPercentile(double percentile) {
+        long n = getCount();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100d * n);
+        long seen = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return bounds[i];
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + " mean=" + getMean() + " p50=" + getPercentile(50)
+                + " p99=" + getPercentile(99) + " max=" + getMax();
+    }
+}
@@ -0,0 +1,60 @@
+package com.tae.bathtub.metrics;
+
+import javax.inject.Inject;
+
+/**
+ * Trace points of the tap simulation loop. A tick is the clock firing on the main thread, it samples
+ * the fill engine, works out the temperature and hands the result to the view batcher, which
+ * dispatches to the view once per frame. The backlog is the number of ticks emitted by the
+ * simulation clock and still waiting for the main thread.
+ */
+public class SimulationTrace {
+
+    public static final String TICK = "sim.tick";
+    public static final String SAMPLE = "sim.sample";
+    public static final String TEMPERATURE = "sim.temperature";
+    public static final String DISPATCH = "view.dispatch";
+    public static final String BACKLOG = "sim.backlog";
+    public static final String DROPPED_TICKS = "sim.ticks.dropped";
+
+    private final Tracer.Section tick;
+    private final Tracer.Section sample;
+    private final Tracer.Section temperature;
+    private final Tracer.Section dispatch;
+    private final Tracer.Depth backlog;
+    private final Tracer.Count droppedTicks;
+
+    @Inject
+    public SimulationTrace(Tracer tracer) {
+        tick = tracer.section(TICK);
+        sample = tracer.section(SAMPLE);
+        temperature = tracer.section(TEMPERATURE);
+        dispatch = tracer.section(DISPATCH);
+        backlog = tracer.depth(BACKLOG);
+        droppedTicks = tracer.count(DROPPED_TICKS);
+    }
+
+    public Tracer.Section tick() {
+        return tick;
+    }
+
+    public Tracer.Section sample() {
+        return sample;
+    }
+
+    public Tracer.Section temperature() {
+        return temperature;
+    }
+
+    public Tracer.Section dispatch() {
+        return dispatch;
+    }
+
+    public Tracer.Depth backlog() {
+        return backlog;
+    }
+
+    public Tracer.Count droppedTicks() {
+        return droppedTicks;
+    }
+}
@@ -0,0 +1,103 @@
+package com.tae.bathtub.metrics;
+
+/**
+ * Tracing for hot paths. Sections, counts and depths are looked up once and kept in fields, after
+ * that a traced call is a branch on a final field and, when enabled, a clock read and a few atomic
+ * adds into the {@link MetricsRegistry}. A disabled tracer records nothing.
+ *
+ * <pre>
+ * long start = tickSection.begin();
+ * ...
+ * tickSection.end(start);
+ * </pre>
+ */
+public class Tracer {
+
+    public static final Tracer DISABLED = new Tracer(null);
+
+    // Upper bounds in microseconds, a 60fps frame is 16ms.
+    static final long[] SECTION_MICROS = {10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 8000, 16000, 33000, 100000};
+
+    private final MetricsRegistry registry;
+
+    /**
+     * @param registry where traces are recorded, {@code null} disables tracing.
+     */
+    public Tracer(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public boolean isEnabled() {
+        return registry != null;
+    }
+
+    /**
+     * @return a timed section recording into the histogram {@code name}, in microseconds.
+     */
+    public Section section(String name) {
+        return new Section(isEnabled() ? registry.histogram(name, SECTION_MICROS) : null);
+    }
+
+    public Count count(String name) {
+        return new Count(isEnabled() ? registry.counter(name) : null);
+    }
+
+    public Depth depth(String name) {
+        return new Depth(isEnabled() ? registry.gauge(name) : null);
+    }
+
+    public static final class Section {
+        private final Histogram histogram;
+
+        Section(Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        /**
+         * @return the token to hand to {@link #end(long)}.
+         */
+        public long begin() {
+            return histogram != null ? System.nanoTime() : 0;
+        }
+
+        public void end(long start) {
+            if (histogram != null) {
+                histogram.record((System.nanoTime() - start) / 1000);
+            }
+        }
+    }
+
+    public static final class Count {
+        private final Counter counter;
+
+        Count(Counter counter) {
+            this.counter = counter;
+        }
+
+        public void increment() {
+            if (counter != null) {
+                counter.increment();
+            }
+        }
+    }
+
+    public static final class Depth {
+        private final Gauge gauge;
+
+        Depth(Gauge gauge) {
+            this.gauge = gauge;
+        }
+
+        public void enter() {
+            if (gauge != null) {
+                gauge.increment();
+            }
+        }
+
+        public void exit() {
+            if (gauge != null) {
+                gauge.decrement();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.tae.bathtub.presentation;
+
+import android.animation.ValueAnimator;
+import android.view.View;
+import android.widget.ImageView;
+
+import java.util.List;
+
+/**
+ * Holds one long-lived animator per animated view. A new water level or indicator angle retargets
+ * the animator from wherever the view currently is, so an update arriving mid animation carries on
+ * smoothly instead of restarting from zero.
+ */
+public class BathtubRenderer {
+
+    private static final long DURATION = 500;
+
+    private final Track water;
+    private final Track indicator;
+    private final Track[] taps;
+    private final List<ImageView> tapViews;
+
+    public BathtubRenderer(View bathtub, View indicator, List<ImageView> tapViews) {
+        this.tapViews = tapViews;
+        water = translationY(bathtub);
+        this.indicator = rotation(indicator);
+        taps = new Track[tapViews.size()];
+        for (int i = 0; i < taps.length; i++) {
+            taps[i] = rotation(tapViews.get(i));
+        }
+    }
+
+    public void setWaterLevel(float level) {
+        water.animateTo(level);
+    }
+
+    public void setIndicator(float angle) {
+        indicator.animateTo(angle);
+    }
+
+    /**
+     * Spins {@code tap} one full turn, clockwise to open and anticlockwise to close.
+     */
+    public void spinTap(View tap, boolean open) {
+        taps[tapViews.indexOf(tap)].animateBetween(0f, open ? 360f : -360f);
+    }
+
+    public void release() {
+        water.cancel();
+        indicator.cancel();
+        for (Track tap : taps) {
+            tap.cancel();
+        }
+    }
+
+    private static Track translationY(View view) {
+        return new Track(view) {
+            @Override
+            float get() {
+                return view.getTranslationY();
+            }
+
+            @Override
+            void set(float value) {
+                view.setTranslationY(value);
+            }
+        };
+    }
+
+    private static Track rotation(View view) {
+        return new Track(view) {
+            @Override
+            float get() {
+                return view.getRotation();
+            }
+
+            @Override
+            void set(float value) {
+                view.setRotation(value);
+            }
+        };
+    }
+
+    /**
+     * One view property driven by a single 0 to 1 animator and a reused update listener. The listener
+     * works from the play time rather than the boxed animated value, and retargeting only moves the
+     * tween's end points, so neither a frame nor a retarget allocates. The motion is linear.
+     */
+    private abstract static class Track implements ValueAnimator.AnimatorUpdateListener {
+
+        final View view;
+        private final ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+        private final Tween tween = new Tween();
+
+        Track(View view) {
+            this.view = view;
+            animator.setDuration(DURATION);
+            animator.addUpdateListener(this);
+        }
+
+        /**
+         * Carries on from wherever the view is now, even mid animation.
+         */
+        void animateTo(float target) {
+            animateBetween(get(), target);
+        }
+
+        void animateBetween(float from, float to) {
+            tween.retarget(from, to);
+            if (animator.isRunning()) {
+                // Rewinds the running animator in place instead of cancelling and starting it again.
+                animator.setCurrentPlayTime(0);
+            } else {
+                animator.start();
+            }
+        }
+
+        void cancel() {
+            animator.cancel();
+        }
+
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            set(tween.valueAt(Tween.fraction(animation.getCurrentPlayTime(), DURATION)));
+        }
+
+        abstract float get();
+
+        abstract void set(float value);
+    }
+}
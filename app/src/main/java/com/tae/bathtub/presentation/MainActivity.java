@@ -4,10 +4,7 @@ import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
 import android.view.View;
-import android.view.animation.Animation;
-import android.view.animation.LinearInterpolator;
-import android.view.animation.RotateAnimation;
-import android.view.animation.TranslateAnimation;
+import android.view.ViewTreeObserver;
 import android.widget.ImageView;
 import android.widget.Toast;
 
@@ -15,6 +12,7 @@ import com.tae.bathtub.App;
 import com.tae.bathtub.R;
 import com.tae.bathtub.data.local.Bathtub;
 import com.tae.bathtub.data.local.Tap;
+import com.tae.bathtub.di.component.BoilerComponent;
 import com.tae.bathtub.di.component.DaggerBoilerComponent;
 import com.tae.bathtub.di.modules.BoilerModule;
 import com.tae.bathtub.domain.presenter.BoilerPresenter;
@@ -37,6 +35,9 @@ import butterknife.OnClick;
  * Presenter --> do some logic --> BathtubView to update the view
  *
  * When the bathtub is full the taps are disabled.
+ *
+ * The presenter survives rotation with the retained {@link BoilerComponent}, the activity only
+ * attaches and detaches itself as its view.
  */
 public class MainActivity extends AppCompatActivity implements BathtubView {
 
@@ -48,9 +49,9 @@ public class MainActivity extends AppCompatActivity implements BathtubView {
 
     @Inject BoilerPresenter presenter;
 
-    private float currentLevel;
+    private BoilerComponent component;
+    private BathtubRenderer renderer;
     private Tap coldTap, hotTap;
-    private List<Tap> taps;
     private Bathtub bathtub;
 
 
@@ -59,60 +60,67 @@ public class MainActivity extends AppCompatActivity implements BathtubView {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
         ButterKnife.bind(this);
-        resolveDependency();
-        presenter.initBoilerService();
-        bathtub = createBathtub();
-        presenter.getBathtub(bathtub);
+        renderer = new BathtubRenderer(imgBathTub, imgIndicator, tapsView);
+        if (resolveDependency()) {
+            bathtub = presenter.getCurrentBathtub();
+        } else {
+            // The saved session is read before the first frame, so a resumed bathtub never flashes empty.
+            Bathtub restored = presenter.restoreSession();
+            presenter.initBoilerService();
+            presenter.watchBoiler();
+            bathtub = restored != null ? restored : createBathtub();
+            presenter.getBathtub(bathtub);
+        }
+        coldTap = bathtub.getTap(Tap.Type.COLD);
+        hotTap = bathtub.getTap(Tap.Type.HOT);
+        presenter.attachView(this);
+        if (hotTap.isOpen()) {
+            renderer.spinTap(tapsView.get(0), true);
+        }
+        if (coldTap.isOpen()) {
+            renderer.spinTap(tapsView.get(1), true);
+        }
+        reportFirstFrame();
+    }
+
+    private void reportFirstFrame() {
+        final View content = findViewById(android.R.id.content);
+        content.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                content.getViewTreeObserver().removeOnPreDrawListener(this);
+                App.getInstance().reportFirstFrame();
+                return true;
+            }
+        });
     }
 
     private Bathtub createBathtub() {
-        coldTap = new Tap();
-        hotTap = new Tap();
-        taps = new ArrayList<>(2);
-        taps.add(coldTap);
-        taps.add(hotTap);
+        List<Tap> taps = new ArrayList<>(2);
+        taps.add(new Tap(Tap.Type.COLD));
+        taps.add(new Tap(Tap.Type.HOT));
         return new Bathtub(taps);
     }
 
+    /**
+     * Every click is handed to the presenter as a toggle, it works out the resulting flow.
+     */
     @OnClick({R.id.coldTap, R.id.hotTap})
     void onClick(View view) {
-        float rotateDirection;
         if (view.getId() == R.id.coldTap) {
-            coldTap.setType(Tap.Type.COLD.name());
             coldTap.setTemperature(presenter.getColdWater());
-            rotateDirection = -45f;
-            handleTapEvents(view, rotateDirection, coldTap);
+            handleTapEvents(view, -45f, coldTap);
         } else {
-            hotTap.setType(Tap.Type.HOT.name());
             hotTap.setTemperature(presenter.getHotWater());
-            rotateDirection = 45f;
-            handleTapEvents(view, rotateDirection, hotTap);
-        }
-
-        if (bathtub.areTwoTapsOpen(taps)) {
-            presenter.unSubscribeSingleTap();
-            presenter.openBothTaps();
-        } else {
-            for (Tap tap : taps) {
-                if (tap.isOpen()) {
-                    presenter.unSubscribeTaps();
-                    presenter.openSingleTap(tap);
-                }
-            }
+            handleTapEvents(view, 45f, hotTap);
         }
     }
 
     private void handleTapEvents(View view, float rotateDirection, Tap tap) {
-        if (!tap.isOpen()) {
-            rotateIndicator(rotateDirection);
-            rotateTap(view, 360f);
-            tap.setOpen(true);
-        } else {
-            rotateIndicator(0f);
-            tap.setOpen(false);
-            rotateTap(view, -360f);
-            presenter.unSubscribeSingleTap();
-        }
+        presenter.toggleTap(tap.getType());
+        boolean open = tap.isOpen();
+        renderer.setIndicator(open ? rotateDirection : 0f);
+        renderer.spinTap(view, open);
     }
 
     @Override
@@ -123,7 +131,7 @@ public class MainActivity extends AppCompatActivity implements BathtubView {
                 public void apply(ImageView view, int index) {
                     Log.i(TAG, "apply: taps disabled");
                     view.setEnabled(false);
-                    rotateIndicator(0f);
+                    renderer.setIndicator(0f);
                 }
             });
         }
@@ -131,9 +139,8 @@ public class MainActivity extends AppCompatActivity implements BathtubView {
 
     @Override
     public void increaseWaterLevel(float level) {
-        currentLevel = level;
         Log.i(TAG, "increaseWaterLevel: level value " + level);
-        raiseWaterLevel(level);
+        renderer.setWaterLevel(level);
     }
 
     @Override
@@ -143,7 +150,7 @@ public class MainActivity extends AppCompatActivity implements BathtubView {
 
     @Override
     public void setTemperatureIndicator(float indicatorPosition) {
-        rotateIndicator(indicatorPosition);
+        renderer.setIndicator(indicatorPosition);
     }
 
     @Override
@@ -153,41 +160,40 @@ public class MainActivity extends AppCompatActivity implements BathtubView {
 
 
     @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        presenter.unSubscribeSingleTap();
+    protected void onStop() {
+        super.onStop();
+        presenter.saveSession();
     }
 
-    private void raiseWaterLevel(float level) {
-        TranslateAnimation animation = new TranslateAnimation(Animation.RELATIVE_TO_SELF, 0f, currentLevel, level);
-        animation.setInterpolator(new LinearInterpolator());
-        animation.setDuration(500);
-        animation.setFillAfter(true);
-        imgBathTub.startAnimation(animation);
-        currentLevel = level;
-    }
-
-
-    private void rotateTap(View view, float rotation) {
-        RotateAnimation rotateAnimation = new RotateAnimation(0f, rotation, Animation.RELATIVE_TO_SELF,0.5f, Animation.RELATIVE_TO_SELF, 0.5f);
-        rotateAnimation.setInterpolator(new LinearInterpolator());
-        rotateAnimation.setDuration(500);
-        view.startAnimation(rotateAnimation);
+    @Override
+    public Object onRetainCustomNonConfigurationInstance() {
+        return component;
     }
 
-    private void rotateIndicator(float rotateDirection) {
-        RotateAnimation rotateAnimation = new RotateAnimation(0f, rotateDirection, Animation.RELATIVE_TO_SELF,0.5f, Animation.RELATIVE_TO_SELF, 0.5f);
-        rotateAnimation.setInterpolator(new LinearInterpolator());
-        rotateAnimation.setDuration(500);
-        rotateAnimation.setFillAfter(true);
-        imgIndicator.startAnimation(rotateAnimation);
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        presenter.detachView();
+        renderer.release();
+        if (!isChangingConfigurations()) {
+            presenter.release();
+        }
     }
 
-    private void resolveDependency() {
-        DaggerBoilerComponent.builder()
-                .applicationComponent(App.getInstance().getApplicationComponent())
-                .boilerModule(new BoilerModule(this))
-                .build()
-                .inject(this);
+    /**
+     * @return true if the component was retained from the previous instance, its presenter is
+     * already running.
+     */
+    private boolean resolveDependency() {
+        component = (BoilerComponent) getLastCustomNonConfigurationInstance();
+        boolean retained = component != null;
+        if (!retained) {
+            component = DaggerBoilerComponent.builder()
+                    .applicationComponent(App.getInstance().getApplicationComponent())
+                    .boilerModule(new BoilerModule())
+                    .build();
+        }
+        component.inject(this);
+        return retained;
     }
 }
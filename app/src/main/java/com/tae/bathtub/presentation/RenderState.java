@@ -0,0 +1,98 @@
+package com.tae.bathtub.presentation;
+
+/**
+ * Snapshot of everything {@link BathtubView} shows for one frame. Only the fields marked dirty
+ * changed since the previous frame and get pushed to the view.
+ */
+public class RenderState {
+
+    static final int LEVEL = 1;
+    static final int TEMPERATURE = 1 << 1;
+    static final int INDICATOR = 1 << 2;
+    static final int OVERFLOW = 1 << 3;
+    static final int MESSAGE = 1 << 4;
+
+    private int dirty;
+    private float level;
+    private int temperature;
+    private float indicatorPosition;
+    private boolean overflow;
+    private String message;
+
+    public boolean isDirty() {
+        return dirty != 0;
+    }
+
+    boolean isDirty(int field) {
+        return (dirty & field) != 0;
+    }
+
+    public float getLevel() {
+        return level;
+    }
+
+    public void setLevel(float level) {
+        this.level = level;
+        dirty |= LEVEL;
+    }
+
+    public int getTemperature() {
+        return temperature;
+    }
+
+    public void setTemperature(int temperature) {
+        this.temperature = temperature;
+        dirty |= TEMPERATURE;
+    }
+
+    public float getIndicatorPosition() {
+        return indicatorPosition;
+    }
+
+    public void setIndicatorPosition(float indicatorPosition) {
+        this.indicatorPosition = indicatorPosition;
+        dirty |= INDICATOR;
+    }
+
+    public boolean isOverflow() {
+        return overflow;
+    }
+
+    public void setOverflow(boolean overflow) {
+        this.overflow = overflow;
+        dirty |= OVERFLOW;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+        dirty |= MESSAGE;
+    }
+
+    /**
+     * Pushes the dirty fields to {@code view} and marks the state clean. Overflow goes first because
+     * the view resets its indicator when the taps get disabled.
+     */
+    void renderTo(BathtubView view) {
+        if (isDirty(OVERFLOW)) {
+            view.waterLevelOverflow(overflow);
+        }
+        if (isDirty(LEVEL)) {
+            view.increaseWaterLevel(level);
+        }
+        if (isDirty(TEMPERATURE)) {
+            view.displayTemperature(temperature);
+        }
+        if (isDirty(INDICATOR)) {
+            view.setTemperatureIndicator(indicatorPosition);
+        }
+        if (isDirty(MESSAGE)) {
+            view.showToast(message);
+            message = null;
+        }
+        dirty = 0;
+    }
+}
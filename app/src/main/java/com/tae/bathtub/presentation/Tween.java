@@ -0,0 +1,30 @@
+package com.tae.bathtub.presentation;
+
+/**
+ * Linear progress between two values, the arithmetic behind {@link BathtubRenderer}'s animators.
+ * Retargeting only rewrites the two end points.
+ */
+class Tween {
+
+    private float from;
+    private float to;
+
+    void retarget(float from, float to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    float valueAt(float fraction) {
+        return from + (to - from) * fraction;
+    }
+
+    /**
+     * @return how far through {@code duration} the animation is at {@code playTime}, between 0 and 1.
+     */
+    static float fraction(long playTime, long duration) {
+        if (duration <= 0) {
+            return 1f;
+        }
+        return Math.max(0f, Math.min(1f, playTime / (float) duration));
+    }
+}
@@ -0,0 +1,99 @@
+package com.tae.bathtub.presentation;
+
+import com.tae.bathtub.domain.scheduler.SchedulerProvider;
+import com.tae.bathtub.metrics.SimulationTrace;
+import com.tae.bathtub.metrics.Tracer;
+
+import javax.inject.Inject;
+
+import rx.Scheduler;
+import rx.functions.Action0;
+
+/**
+ * Collects view updates into a {@link RenderState} and hands them to {@link BathtubView} in a single
+ * main thread dispatch. Every change made before the dispatch runs lands in the same frame, values
+ * overwritten in between are never rendered.
+ *
+ * Must be used from the main thread. Once a frame is scheduled further updates only write fields,
+ * so the per tick path does not allocate.
+ *
+ * The view comes and goes with the activity. While none is attached updates keep accumulating in
+ * the pending state, and they are rendered into the next view that attaches.
+ */
+public class ViewUpdateBatcher {
+
+    private final SchedulerProvider schedulers;
+    private final Tracer.Section dispatch;
+    private final Action0 renderFrame = new Action0() {
+        @Override
+        public void call() {
+            render();
+        }
+    };
+
+    private BathtubView view;
+    private RenderState pending = new RenderState();
+    private RenderState frame = new RenderState();
+    private Scheduler.Worker worker;
+    private boolean scheduled;
+
+    @Inject
+    public ViewUpdateBatcher(SchedulerProvider schedulers, SimulationTrace trace) {
+        this.schedulers = schedulers;
+        this.dispatch = trace.dispatch();
+    }
+
+    public void attach(BathtubView view) {
+        this.view = view;
+        commit();
+    }
+
+    public void detach() {
+        view = null;
+    }
+
+    /**
+     * @return the state of the next frame, changes to it are rendered once {@link #commit()} runs.
+     */
+    public RenderState edit() {
+        return pending;
+    }
+
+    /**
+     * Schedules a frame for the pending changes unless one is already on its way.
+     */
+    public void commit() {
+        if (scheduled || view == null || !pending.isDirty()) {
+            return;
+        }
+        if (worker == null) {
+            worker = schedulers.mainThread().createWorker();
+        }
+        scheduled = true;
+        worker.schedule(renderFrame);
+    }
+
+    public void release() {
+        view = null;
+        if (worker != null) {
+            worker.unsubscribe();
+            worker = null;
+        }
+        scheduled = false;
+    }
+
+    private void render() {
+        scheduled = false;
+        if (view == null) {
+            // Detached after the frame was scheduled, the changes wait for the next view.
+            return;
+        }
+        // Swap the buffers so updates made by the view callbacks go to the next frame.
+        RenderState state = pending;
+        pending = frame;
+        frame = state;
+        long start = dispatch.begin();
+        frame.renderTo(view);
+        dispatch.end(start);
+    }
+}
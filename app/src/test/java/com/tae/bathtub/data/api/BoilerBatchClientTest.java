@@ -0,0 +1,156 @@
+package com.tae.bathtub.data.api;
+
+import com.tae.bathtub.data.api.model.Boiler;
+import com.tae.bathtub.data.api.model.InstallationBoiler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dagger.Lazy;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class BoilerBatchClientTest {
+
+    private static final long SERVER_DELAY_MILLIS = 40;
+
+    private MockWebServer server;
+    private BathTubService service;
+    private BoilerBatchClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(new BoilerConverterFactory())
+                .addCallAdapterFactory(RxJavaCallAdapterFactory.createWithScheduler(Schedulers.io()))
+                .build()
+                .create(BathTubService.class);
+        client = new BoilerBatchClient(new Lazy<BathTubService>() {
+            @Override
+            public BathTubService get() {
+                return service;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void batch_shouldStreamEveryBoilerFromOneRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody("{a: {hot_water: 50, cold_water: 10}, b: {hot_water: 60, cold_water: 5}}"));
+
+        List<InstallationBoiler> boilers = fetch(Arrays.asList("a", "b"));
+
+        assertEquals(Arrays.asList(new InstallationBoiler("a", new Boiler(50, 10)),
+                new InstallationBoiler("b", new Boiler(60, 5))), boilers);
+        assertEquals(1, server.getRequestCount());
+        assertEquals("a,b", HttpUrl.parse("http://localhost" + server.takeRequest().getPath()).queryParameter("ids"));
+    }
+
+    @Test
+    public void missingBatchEndpoint_shouldFallBackWithBoundedConcurrency() throws Exception {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if (request.getPath().startsWith(NetworkConstants.BOILERS_END_POINT)) {
+                    return new MockResponse().setResponseCode(404);
+                }
+                int current = inFlight.incrementAndGet();
+                maxInFlight.set(Math.max(maxInFlight.get(), current));
+                Thread.sleep(SERVER_DELAY_MILLIS);
+                inFlight.decrementAndGet();
+                return new MockResponse().setBody("{hot_water: 50, cold_water: 10}");
+            }
+        });
+
+        List<InstallationBoiler> boilers = fetch(ids(12));
+
+        assertEquals(12, boilers.size());
+        assertEquals(13, server.getRequestCount());
+        assertTrue(maxInFlight.get() <= NetworkConstants.MAX_REQUESTS_PER_HOST);
+    }
+
+    @Test
+    public void brokenBatchBody_shouldFailWithoutRetryingEachItem() throws Exception {
+        server.enqueue(new MockResponse().setBody("{a: {hot_water: 50, cold_water: 10}, b: {hot_water:"));
+
+        TestSubscriber<InstallationBoiler> subscriber = new TestSubscriber<>();
+        client.getBoilers(Arrays.asList("a", "b")).subscribe(subscriber);
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+
+        subscriber.assertValue(new InstallationBoiler("a", new Boiler(50, 10)));
+        assertEquals(1, subscriber.getOnErrorEvents().size());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void batchedFetch_shouldBeatSingleCallsOnTotalLatency() throws Exception {
+        final List<String> installationIds = ids(8);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                Thread.sleep(SERVER_DELAY_MILLIS);
+                if (request.getPath().startsWith(NetworkConstants.BOILERS_END_POINT)) {
+                    StringBuilder body = new StringBuilder("{");
+                    for (String id : installationIds) {
+                        body.append(body.length() > 1 ? "," : "").append(id).append(": {hot_water: 50, cold_water: 10}");
+                    }
+                    return new MockResponse().setBody(body.append('}').toString());
+                }
+                return new MockResponse().setBody("{hot_water: 50, cold_water: 10}");
+            }
+        });
+
+        long start = System.nanoTime();
+        assertEquals(installationIds.size(), fetch(installationIds).size());
+        long batched = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (String id : installationIds) {
+            service.getInstallationBoiler(id).toBlocking().single();
+        }
+        long singles = System.nanoTime() - start;
+
+        assertTrue("batched " + batched + " ns, single calls " + singles + " ns", batched < singles);
+    }
+
+    private List<InstallationBoiler> fetch(List<String> installationIds) {
+        return client.getBoilers(installationIds).toList().toBlocking().single();
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add("installation" + i);
+        }
+        return ids;
+    }
+}
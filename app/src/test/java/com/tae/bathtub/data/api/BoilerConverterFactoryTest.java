@@ -0,0 +1,86 @@
+package com.tae.bathtub.data.api;
+
+import com.google.gson.JsonSyntaxException;
+import com.tae.bathtub.data.api.model.Boiler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.annotation.Annotation;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(JUnit4.class)
+public class BoilerConverterFactoryTest {
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    @Rule
+    public MockWebServer server = new MockWebServer();
+
+    private final BoilerConverterFactory factory = new BoilerConverterFactory();
+
+    @Test
+    public void unquotedProperties_shouldBeParsed() throws Exception {
+        Boiler boiler = convert("{\n\thot_water: 50,\n\tcold_water: 10\n}");
+        assertEquals(50, boiler.getHot_water());
+        assertEquals(10, boiler.getCold_water());
+    }
+
+    @Test
+    public void quotedCamelCaseProperties_shouldBeParsed() throws Exception {
+        Boiler boiler = convert("{\"hotWater\": 50, \"coldWater\": 10}");
+        assertEquals(50, boiler.getHot_water());
+        assertEquals(10, boiler.getCold_water());
+    }
+
+    @Test
+    public void unknownProperties_shouldBeSkipped() throws Exception {
+        Boiler boiler = convert("{model: {name: 'combi', year: 2016}, hot_water: 55, cold_water: 12, tags: [1, 2]}");
+        assertEquals(55, boiler.getHot_water());
+        assertEquals(12, boiler.getCold_water());
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void missingTemperature_shouldFail() throws Exception {
+        convert("{hot_water: 50}");
+    }
+
+    @Test
+    public void otherTypes_shouldBeLeftToOtherConverters() throws Exception {
+        assertNull(factory.responseBodyConverter(String.class, new Annotation[0], null));
+    }
+
+    @Test
+    public void retrofit_shouldReadUnquotedBoiler() throws Exception {
+        server.enqueue(new MockResponse().setBody("{hot_water: 50, cold_water: 10}"));
+        BathTubService service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(factory)
+                .addCallAdapterFactory(RxJavaCallAdapterFactory.create())
+                .build()
+                .create(BathTubService.class);
+
+        Boiler boiler = service.getBoiler().toBlocking().single();
+        assertEquals(50, boiler.getHot_water());
+        assertEquals(10, boiler.getCold_water());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Boiler convert(String json) throws Exception {
+        Converter<ResponseBody, Boiler> converter =
+                (Converter<ResponseBody, Boiler>) factory.responseBodyConverter(Boiler.class, new Annotation[0], null);
+        return converter.convert(ResponseBody.create(JSON, json));
+    }
+}
@@ -0,0 +1,145 @@
+package com.tae.bathtub.data.api;
+
+import com.tae.bathtub.data.api.model.Boiler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action1;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The stream is read in place on the test thread and every backoff waits on virtual time, only a
+ * stream that has to stay open while the test unsubscribes is read on a real I/O thread.
+ */
+@RunWith(JUnit4.class)
+public class BoilerTelemetryClientTest {
+
+    private static final long BACKOFF_MILLIS = 50;
+
+    private MockWebServer server;
+    private TestScheduler clock;
+    private BoilerTelemetryClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        clock = new TestScheduler();
+        client = newClient(Schedulers.immediate());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void updates_shouldArriveIncrementallyOverOneConnection() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody(": heartbeat\n\ndata: {hot_water: 50, cold_water: 10}\n\nevent: boiler\ndata: {hot_water: 55,\ndata: cold_water: 12}\n\n")
+                .setSocketPolicy(SocketPolicy.KEEP_OPEN));
+
+        List<Boiler> boilers = client.getBoilerUpdates().take(2).toList().toBlocking().single();
+
+        assertEquals(new Boiler(50, 10), boilers.get(0));
+        assertEquals(new Boiler(55, 12), boilers.get(1));
+        assertEquals(1, server.getRequestCount());
+        assertEquals("text/event-stream", server.takeRequest().getHeader("Accept"));
+    }
+
+    @Test
+    public void droppedConnections_shouldReconnectWithGrowingBackoff() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        }
+        server.enqueue(new MockResponse()
+                .setBody("data: {hot_water: 50, cold_water: 10}\n\n")
+                .setSocketPolicy(SocketPolicy.KEEP_OPEN));
+        TestSubscriber<Boiler> subscriber = new TestSubscriber<>();
+
+        client.getBoilerUpdates().take(1).subscribe(subscriber);
+        assertEquals(1, server.getRequestCount());
+
+        // Waits of 50, 100 and 200 ms between the four attempts.
+        long[] backoffs = {BACKOFF_MILLIS, 2 * BACKOFF_MILLIS, 4 * BACKOFF_MILLIS};
+        for (int i = 0; i < backoffs.length; i++) {
+            clock.advanceTimeBy(backoffs[i] - 1, TimeUnit.MILLISECONDS);
+            assertEquals(i + 1, server.getRequestCount());
+            clock.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+            assertEquals(i + 2, server.getRequestCount());
+        }
+        subscriber.assertValues(new Boiler(50, 10));
+        subscriber.assertCompleted();
+    }
+
+    @Test
+    public void serverError_shouldBeRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse()
+                .setBody("data: {hot_water: 50, cold_water: 10}\n\n")
+                .setSocketPolicy(SocketPolicy.KEEP_OPEN));
+        TestSubscriber<Boiler> subscriber = new TestSubscriber<>();
+
+        client.getBoilerUpdates().take(1).subscribe(subscriber);
+        clock.advanceTimeBy(BACKOFF_MILLIS, TimeUnit.MILLISECONDS);
+
+        subscriber.assertValues(new Boiler(50, 10));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void missingEndpoint_shouldEndTheStream() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        TestSubscriber<Boiler> subscriber = new TestSubscriber<>();
+        client.getBoilerUpdates().subscribe(subscriber);
+        clock.advanceTimeBy(1, TimeUnit.MINUTES);
+
+        subscriber.assertError(IllegalStateException.class);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void unsubscribing_shouldCloseTheStream() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody("data: {hot_water: 50, cold_water: 10}\n\n")
+                .setSocketPolicy(SocketPolicy.KEEP_OPEN));
+        final CountDownLatch received = new CountDownLatch(1);
+
+        Subscription subscription = newClient(Schedulers.io()).getBoilerUpdates().subscribe(new Action1<Boiler>() {
+            @Override
+            public void call(Boiler boiler) {
+                received.countDown();
+            }
+        });
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        subscription.unsubscribe();
+        clock.advanceTimeBy(1, TimeUnit.MINUTES);
+
+        assertEquals("no reconnect once unsubscribed", 1, server.getRequestCount());
+    }
+
+    private BoilerTelemetryClient newClient(Scheduler ioScheduler) {
+        return new BoilerTelemetryClient(new OkHttpClient(), server.url(NetworkConstants.BOILER_TELEMETRY_END_POINT),
+                BACKOFF_MILLIS, 8 * BACKOFF_MILLIS, TimeUnit.MILLISECONDS, ioScheduler, clock);
+    }
+}
@@ -0,0 +1,99 @@
+package com.tae.bathtub.data.api;
+
+import com.tae.bathtub.metrics.MetricsRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+
+import okhttp3.Dns;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class MetricsInterceptorTest {
+
+    private static final String BODY = "{hot_water: 50, cold_water: 10}";
+
+    @Rule
+    public MockWebServer server = new MockWebServer();
+
+    private MetricsRegistry registry;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new MetricsRegistry();
+        client = new OkHttpClient.Builder()
+                .addInterceptor(new MetricsInterceptor(registry))
+                .dns(new TimingDns(Dns.SYSTEM, registry))
+                .socketFactory(new TimingSocketFactory(registry))
+                .build();
+    }
+
+    @Test
+    public void successfulCall_shouldRecordLatenciesAndBytes() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY));
+
+        Response response = client.newCall(new Request.Builder().url(server.url("/bath.json")).build()).execute();
+        assertEquals(BODY, response.body().string());
+
+        assertEquals(1, registry.histogram(MetricsInterceptor.CONNECT).getCount());
+        assertEquals(1, registry.histogram(MetricsInterceptor.TTFB).getCount());
+        assertEquals(1, registry.histogram(MetricsInterceptor.TOTAL).getCount());
+        assertTrue(registry.histogram(MetricsInterceptor.TOTAL).getMax()
+                >= registry.histogram(MetricsInterceptor.TTFB).getMax());
+        assertEquals(BODY.length(), registry.counter(MetricsInterceptor.BYTES_RECEIVED).getCount());
+        assertEquals(0, registry.counter(MetricsInterceptor.ERRORS).getCount());
+    }
+
+    @Test
+    public void pooledConnection_shouldNotConnectAgain() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY));
+        server.enqueue(new MockResponse().setBody(BODY));
+
+        for (int i = 0; i < 2; i++) {
+            client.newCall(new Request.Builder().url(server.url("/bath.json")).build()).execute().body().close();
+        }
+
+        assertEquals(1, registry.histogram(MetricsInterceptor.CONNECT).getCount());
+        assertEquals(2, registry.histogram(MetricsInterceptor.TOTAL).getCount());
+    }
+
+    @Test
+    public void serverError_shouldCountError() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        client.newCall(new Request.Builder().url(server.url("/bath.json")).build()).execute().body().close();
+
+        assertEquals(1, registry.counter(MetricsInterceptor.ERRORS).getCount());
+        assertEquals(1, registry.histogram(MetricsInterceptor.TOTAL).getCount());
+    }
+
+    @Test
+    public void droppedConnection_shouldCountError() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        OkHttpClient noRetry = client.newBuilder().retryOnConnectionFailure(false).build();
+
+        try {
+            noRetry.newCall(new Request.Builder().url(server.url("/bath.json")).build()).execute();
+            fail("Expected the call to fail");
+        } catch (IOException expected) {
+        }
+
+        assertEquals(1, registry.counter(MetricsInterceptor.ERRORS).getCount());
+        assertEquals(0, registry.histogram(MetricsInterceptor.TTFB).getCount());
+    }
+}
@@ -0,0 +1,67 @@
+package com.tae.bathtub.data.cache;
+
+import com.tae.bathtub.data.api.model.Boiler;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class BoilerCacheTest {
+
+    @Test
+    public void emptyCache_shouldNotBeFresh() throws Exception {
+        BoilerCache cache = new BoilerCache(1, TimeUnit.HOURS);
+        assertNull(cache.get());
+        assertFalse(cache.isFresh());
+    }
+
+    @Test
+    public void boiler_shouldBeFreshWithinTtl() throws Exception {
+        BoilerCache cache = new BoilerCache(1, TimeUnit.HOURS);
+        cache.put(new Boiler(50, 10));
+        assertTrue(cache.isFresh());
+        assertEquals(new Boiler(50, 10), cache.get());
+    }
+
+    @Test
+    public void expiredBoiler_shouldStillBeServed() throws Exception {
+        BoilerCache cache = new BoilerCache(0, TimeUnit.MILLISECONDS);
+        cache.put(new Boiler(50, 10));
+        assertFalse(cache.isFresh());
+        assertEquals(new Boiler(50, 10), cache.get());
+    }
+
+    @Test
+    public void restoredBoiler_shouldOnlyBeFreshForTheRestOfTheTtl() throws Exception {
+        BoilerCache cache = new BoilerCache(30, TimeUnit.MINUTES);
+        cache.put(new Boiler(50, 10), 10, TimeUnit.MINUTES);
+        assertTrue(cache.isFresh());
+        cache.put(new Boiler(50, 10), 40, TimeUnit.MINUTES);
+        assertFalse(cache.isFresh());
+        assertEquals(new Boiler(50, 10), cache.get());
+    }
+
+    @Test
+    public void age_shouldOnlyBeKnownForTheCachedBoiler() throws Exception {
+        BoilerCache cache = new BoilerCache(30, TimeUnit.MINUTES);
+        assertEquals(Long.MAX_VALUE, cache.getAge(new Boiler(50, 10), TimeUnit.MINUTES));
+        cache.put(new Boiler(50, 10), 10, TimeUnit.MINUTES);
+        assertEquals(10, cache.getAge(new Boiler(50, 10), TimeUnit.MINUTES));
+        assertEquals(Long.MAX_VALUE, cache.getAge(new Boiler(55, 15), TimeUnit.MINUTES));
+    }
+
+    @Test
+    public void unknownAge_shouldRestoreAsStale() throws Exception {
+        BoilerCache cache = new BoilerCache(30, TimeUnit.MINUTES);
+        cache.put(new Boiler(50, 10), Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        assertFalse(cache.isFresh());
+    }
+}
@@ -0,0 +1,91 @@
+package com.tae.bathtub.data.local;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class BathtubTest {
+
+    private static final double DELTA = 0.001;
+
+    @Test
+    public void setTaps_shouldCopyTheCallersList() throws Exception {
+        List<Tap> taps = new ArrayList<>(Arrays.asList(new Tap(Tap.Type.COLD, 10, false)));
+        Bathtub bathtub = new Bathtub(taps);
+        taps.add(new Tap(Tap.Type.HOT, 50, true));
+
+        assertEquals(1, bathtub.getTaps().size());
+        assertNull(bathtub.getTap(Tap.Type.HOT));
+        assertFalse(bathtub.hasOpenTaps());
+    }
+
+    @Test
+    public void nullTaps_shouldLeaveTheBathtubWithoutTaps() throws Exception {
+        Bathtub bathtub = new Bathtub(Arrays.asList(new Tap(Tap.Type.COLD, 10, true)));
+        bathtub.setTaps(null);
+
+        assertTrue(bathtub.getTaps().isEmpty());
+        assertNull(bathtub.getTap(Tap.Type.COLD));
+        assertFalse(bathtub.hasOpenTaps());
+    }
+
+    @Test
+    public void addWater_shouldMixByVolume() throws Exception {
+        Bathtub bathtub = new Bathtub();
+        bathtub.addWater(30, 10);
+        bathtub.addWater(10, 50);
+        assertEquals(40, bathtub.getLevel());
+        assertEquals(20, bathtub.getTemperature());
+    }
+
+    @Test
+    public void addWater_shouldAccountForWaterAlreadyInTub() throws Exception {
+        Bathtub bathtub = new Bathtub();
+        bathtub.addWater(100, 10);
+        bathtub.addWater(10, 50);
+        // (100 * 10 + 10 * 50) / 110, not the (10 + 50) / 2 of the taps alone.
+        assertEquals(14, bathtub.getTemperature());
+        assertEquals(1500, bathtub.getHeat(), DELTA);
+        assertEquals(110, bathtub.getVolume(), DELTA);
+    }
+
+    @Test
+    public void manyIncrements_shouldMatchSinglePour() throws Exception {
+        Bathtub stepped = new Bathtub();
+        for (int i = 0; i < 1000; i++) {
+            stepped.addWater(0.1, 50);
+        }
+        Bathtub poured = new Bathtub();
+        poured.addWater(100, 50);
+        assertEquals(poured.getVolume(), stepped.getVolume(), DELTA);
+        assertEquals(poured.getTemperature(), stepped.getTemperature());
+    }
+
+    @Test
+    public void nothingPoured_shouldLeaveStateUntouched() throws Exception {
+        Bathtub bathtub = new Bathtub();
+        bathtub.addWater(0, 50);
+        assertEquals(0, bathtub.getLevel());
+        assertEquals(0, bathtub.getTemperature());
+    }
+
+    @Test
+    public void restoredState_shouldKeepMixing() throws Exception {
+        Bathtub bathtub = new Bathtub();
+        bathtub.setLevel(100);
+        bathtub.setTemperature(30);
+        bathtub.addWater(100, 10);
+        assertEquals(200, bathtub.getLevel());
+        assertEquals(20, bathtub.getTemperature());
+    }
+}
@@ -0,0 +1,95 @@
+package com.tae.bathtub.data.local;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class FillEngineTest {
+
+    private static final double DELTA = 0.001;
+
+    private Tap coldTap;
+    private Tap hotTap;
+    private Bathtub bathtub;
+    private FillEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        coldTap = new Tap(Tap.Type.COLD, 10, false);
+        hotTap = new Tap(Tap.Type.HOT, 50, false);
+        bathtub = new Bathtub(Arrays.asList(coldTap, hotTap));
+        engine = new FillEngine(bathtub, 0);
+    }
+
+    @Test
+    public void closedTaps_shouldNeverFill() throws Exception {
+        engine.onTapsChanged(0);
+        assertEquals(0, engine.levelAt(60000), DELTA);
+        assertEquals(Long.MAX_VALUE, engine.fullAt());
+    }
+
+    @Test
+    public void singleTap_shouldFillLinearly() throws Exception {
+        bathtub.setTapOpen(coldTap.getType(), true);
+        engine.onTapsChanged(0);
+        assertEquals(10, engine.levelAt(3000), DELTA);
+        assertEquals(100, engine.levelAt(30000), DELTA);
+        assertEquals(10, engine.temperatureAt(30000), DELTA);
+    }
+
+    @Test
+    public void fullAt_shouldBeExactTimeToCapacity() throws Exception {
+        bathtub.setTapOpen(coldTap.getType(), true);
+        engine.onTapsChanged(0);
+        assertEquals(66000, engine.fullAt());
+        assertFalse(engine.isFull(65999));
+        assertTrue(engine.isFull(66000));
+        assertEquals(Bathtub.MAX_CAPACITY, engine.levelAt(100000), DELTA);
+    }
+
+    @Test
+    public void bothTaps_shouldMixByFlow() throws Exception {
+        bathtub.setTapOpen(coldTap.getType(), true);
+        bathtub.setTapOpen(hotTap.getType(), true);
+        engine.onTapsChanged(0);
+        assertEquals(22, engine.levelAt(3000), DELTA);
+        assertEquals((10 * 10 + 50 * 12) / 22d, engine.temperatureAt(3000), DELTA);
+        assertEquals(30000, engine.fullAt());
+    }
+
+    @Test
+    public void tapChange_shouldKeepWaterAlreadyInTheTub() throws Exception {
+        bathtub.setTapOpen(coldTap.getType(), true);
+        engine.onTapsChanged(0);
+        bathtub.setTapOpen(coldTap.getType(), false);
+        bathtub.setTapOpen(hotTap.getType(), true);
+        engine.onTapsChanged(30000);
+        assertEquals(100, engine.levelAt(30000), DELTA);
+        assertEquals(148, engine.levelAt(42000), DELTA);
+        assertEquals((100 * 10 + 48 * 50) / 148d, engine.temperatureAt(42000), DELTA);
+        assertEquals(30000 + 30000, engine.fullAt());
+    }
+
+    @Test
+    public void sample_shouldWriteStateIntoBathtub() throws Exception {
+        bathtub.setTapOpen(hotTap.getType(), true);
+        engine.onTapsChanged(0);
+        engine.sample(15000);
+        assertEquals(60, bathtub.getLevel());
+        assertEquals(50, bathtub.getTemperature());
+        bathtub.setTapOpen(coldTap.getType(), true);
+        bathtub.setTapOpen(hotTap.getType(), false);
+        engine.onTapsChanged(15000);
+        engine.sample(33000);
+        assertEquals(120, bathtub.getLevel());
+        assertEquals(30, bathtub.getTemperature());
+    }
+}
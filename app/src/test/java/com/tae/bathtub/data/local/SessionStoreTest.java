@@ -0,0 +1,170 @@
+package com.tae.bathtub.data.local;
+
+import com.tae.bathtub.data.api.model.Boiler;
+import com.tae.bathtub.metrics.MetricsRegistry;
+import com.tae.bathtub.metrics.Tracer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class SessionStoreTest {
+
+    private File file;
+    private QueuedExecutor writer;
+    private MetricsRegistry registry;
+    private SessionStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("session", ".bin");
+        file.delete();
+        writer = new QueuedExecutor();
+        registry = new MetricsRegistry();
+        store = new SessionStore(file, writer, new Tracer(registry));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void snapshot_shouldSurviveARoundTrip() throws Exception {
+        Bathtub bathtub = halfFullBathtub();
+        SessionSnapshot restored = SnapshotCodec.decode(
+                SnapshotCodec.encode(new SessionSnapshot(bathtub, new Boiler(50, 10), 1234L)));
+
+        Bathtub copy = restored.getBathtub();
+        assertEquals(bathtub.getVolume(), copy.getVolume(), 0);
+        assertEquals(bathtub.getHeat(), copy.getHeat(), 0);
+        assertEquals(bathtub.getLevel(), copy.getLevel());
+        assertEquals(bathtub.getTemperature(), copy.getTemperature());
+        assertEquals(bathtub.getOpenTaps(), copy.getOpenTaps());
+        assertEquals(50, copy.getTap(Tap.Type.HOT).getTemperature());
+        assertEquals(bathtub.getTap(Tap.Type.COLD).getFlowRate(), copy.getTap(Tap.Type.COLD).getFlowRate(), 0);
+        assertEquals(new Boiler(50, 10), restored.getBoiler());
+        assertEquals(1234L, restored.getBoilerFetchedAt());
+    }
+
+    @Test
+    public void snapshot_shouldStayWellUnderTheReadBound() throws Exception {
+        byte[] data = SnapshotCodec.encode(new SessionSnapshot(halfFullBathtub(), new Boiler(50, 10), 0));
+        assertTrue(data.length < 100);
+    }
+
+    @Test
+    public void missingBoiler_shouldBeRestoredAsNull() throws Exception {
+        SessionSnapshot restored = SnapshotCodec.decode(
+                SnapshotCodec.encode(new SessionSnapshot(halfFullBathtub(), null, 0)));
+        assertNull(restored.getBoiler());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedSnapshot_shouldNotDecode() throws Exception {
+        byte[] data = SnapshotCodec.encode(new SessionSnapshot(halfFullBathtub(), new Boiler(50, 10), 0));
+        SnapshotCodec.decode(Arrays.copyOf(data, data.length / 2));
+    }
+
+    @Test
+    public void save_shouldOnlyWriteOnTheWriter() throws Exception {
+        store.save(new SessionSnapshot(halfFullBathtub(), new Boiler(50, 10), 0));
+        assertFalse(file.exists());
+
+        writer.runAll();
+        assertEquals(110, store.load().getBathtub().getLevel());
+        assertEquals(1, registry.histogram(SessionStore.RESTORE).getCount());
+    }
+
+    @Test
+    public void savesWhileAWriteIsPending_shouldWriteOnlyTheLatest() throws Exception {
+        Bathtub bathtub = halfFullBathtub();
+        store.save(new SessionSnapshot(bathtub, null, 0));
+        bathtub.addWater(10, 30);
+        store.save(new SessionSnapshot(bathtub, null, 0));
+
+        assertEquals(1, writer.tasks.size());
+        writer.runAll();
+        assertEquals(120, store.load().getBathtub().getLevel());
+    }
+
+    @Test
+    public void corruptFile_shouldBeIgnored() throws Exception {
+        write(new byte[]{1, 2, 3, 4, 5});
+        assertNull(store.load());
+    }
+
+    @Test
+    public void oversizedFile_shouldNotBeRead() throws Exception {
+        byte[] data = SnapshotCodec.encode(new SessionSnapshot(halfFullBathtub(), null, 0));
+        write(Arrays.copyOf(data, SessionStore.MAX_SNAPSHOT_BYTES + 1));
+        assertNull(store.load());
+    }
+
+    @Test
+    public void clear_shouldDropTheSnapshot() throws Exception {
+        store.save(new SessionSnapshot(halfFullBathtub(), null, 0));
+        writer.runAll();
+        store.clear();
+        assertNull(store.load());
+    }
+
+    @Test
+    public void clear_shouldWinOverAWriteUnderWay() throws Exception {
+        store.save(new SessionSnapshot(halfFullBathtub(), null, 0));
+        // The writer has taken the snapshot but not renamed it into place yet.
+        Runnable write = writer.tasks.remove(0);
+        store.clear();
+        write.run();
+        writer.runAll();
+        assertNull(store.load());
+    }
+
+    private void write(byte[] data) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(data);
+        out.close();
+    }
+
+    private static Bathtub halfFullBathtub() {
+        Tap cold = new Tap(Tap.Type.COLD, 10, true);
+        Tap hot = new Tap(Tap.Type.HOT, 50, false);
+        cold.setFlowRate(3.25);
+        Bathtub bathtub = new Bathtub(Arrays.asList(cold, hot));
+        bathtub.addWater(55, 10);
+        bathtub.addWater(55, 50);
+        return bathtub;
+    }
+
+    private static class QueuedExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            tasks.clear();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.tae.bathtub.data.local;
+
+import com.tae.bathtub.data.api.model.Boiler;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class TapHistoryTest {
+
+    private static final double DELTA = 0.001;
+
+    private Bathtub bathtub;
+    private FillEngine engine;
+    private TapHistory history;
+
+    @Before
+    public void setUp() throws Exception {
+        bathtub = new Bathtub(Arrays.asList(new Tap(Tap.Type.COLD, 10, false), new Tap(Tap.Type.HOT, 50, false)));
+        engine = new FillEngine(bathtub, 0);
+        history = new TapHistory(TapHistory.DEFAULT_CAPACITY, TapHistory.DEFAULT_SNAPSHOT_INTERVAL);
+        history.reset(bathtub, 0);
+    }
+
+    @Test
+    public void emptyHistory_shouldNotReplay() throws Exception {
+        assertNull(new TapHistory(16, 4).replay(1000));
+    }
+
+    @Test
+    public void replay_shouldRebuildTheFillAtAnyMoment() throws Exception {
+        toggle(Tap.Type.COLD, 0);
+        toggle(Tap.Type.HOT, 6000);
+        toggle(Tap.Type.COLD, 15000);
+
+        assertReplayed(3000, 10, 10);
+        // 20 cold units, then 6 seconds of both taps.
+        assertReplayed(12000, 20 + 6 * 22d / 3, (20 * 10 + 6 * 10d / 3 * 10 + 6 * 4 * 50) / (20 + 6 * 22d / 3));
+
+        Bathtub replayed = history.replay(15000);
+        assertFalse(replayed.isTapOpen(Tap.Type.COLD));
+        assertTrue(replayed.isTapOpen(Tap.Type.HOT));
+        assertEquals(engine.levelAt(15000), replayed.getVolume(), DELTA);
+    }
+
+    @Test
+    public void replayPastLastEvent_shouldFastForwardTheFlow() throws Exception {
+        toggle(Tap.Type.HOT, 0);
+
+        Bathtub replayed = history.replay(30000);
+        assertEquals(120, replayed.getVolume(), DELTA);
+        assertEquals(Bathtub.MAX_CAPACITY, history.replay(3600000).getLevel());
+    }
+
+    @Test
+    public void replay_shouldBeDeterministic() throws Exception {
+        // Over two snapshots of toggles, the last at 23.8 seconds.
+        for (int i = 0; i < 141; i++) {
+            toggle(i % 3 == 0 ? Tap.Type.HOT : Tap.Type.COLD, i * 170);
+        }
+        Bathtub first = history.replay(25000);
+        Bathtub second = history.replay(25000);
+        assertEquals(first.getVolume(), second.getVolume(), 0);
+        assertEquals(first.getHeat(), second.getHeat(), 0);
+        assertEquals(engine.levelAt(25000), first.getVolume(), DELTA);
+        assertEquals(engine.temperatureAt(25000), first.getHeat() / first.getVolume(), DELTA);
+    }
+
+    @Test
+    public void boilerUpdate_shouldChangeTheWaterPouredFromThenOn() throws Exception {
+        toggle(Tap.Type.HOT, 0);
+        bathtub.getTap(Tap.Type.HOT).setTemperature(30);
+        bathtub.getTap(Tap.Type.COLD).setTemperature(5);
+        engine.onTapsChanged(10000);
+        history.recordBoiler(10000, new Boiler(30, 5));
+
+        assertReplayed(20000, 80, 40);
+        assertEquals(5, history.replay(20000).getTap(Tap.Type.COLD).getTemperature());
+    }
+
+    @Test
+    public void reheatedTap_shouldBeRecorded() throws Exception {
+        toggle(Tap.Type.HOT, 0);
+        bathtub.getTap(Tap.Type.HOT).setTemperature(30);
+        engine.onTapsChanged(10000);
+        history.recordTaps(10000, bathtub);
+
+        assertReplayed(20000, 80, 40);
+    }
+
+    @Test
+    public void unchangedTaps_shouldNotBeRecorded() throws Exception {
+        toggle(Tap.Type.HOT, 0);
+        history.recordTaps(1000, bathtub);
+        // A closed tap's temperature does not change the flow.
+        bathtub.getTap(Tap.Type.COLD).setTemperature(20);
+        history.recordTaps(2000, bathtub);
+        assertEquals(1, history.size());
+    }
+
+    @Test
+    public void fullBuffer_shouldKeepReplayBoundedBySnapshots() throws Exception {
+        history = new TapHistory(16, 4);
+        history.reset(bathtub, 0);
+        for (int i = 0; i < 101; i++) {
+            toggle(Tap.Type.COLD, i * 1000);
+        }
+
+        assertEquals(16, history.size());
+        assertNull("overwritten events cannot be replayed", history.replay(10000));
+        assertTrue(history.getOldestTime() >= 85000);
+        // The cold tap ran during every even second.
+        long oldest = history.getOldestTime();
+        assertEquals((oldest / 2000 + oldest / 1000 % 2) * 10d / 3, history.replay(oldest).getVolume(), DELTA);
+        assertEquals(engine.levelAt(100500), history.replay(100500).getVolume(), DELTA);
+        assertTrue(history.replay(100500).isTapOpen(Tap.Type.COLD));
+    }
+
+    @Test
+    public void reset_shouldStartANewFill() throws Exception {
+        toggle(Tap.Type.COLD, 0);
+        bathtub.setLevel(50);
+        history.reset(bathtub, 60000);
+
+        assertEquals(0, history.size());
+        assertNull(history.replay(30000));
+        // The open cold tap only flows once it is recorded.
+        assertEquals(50, history.replay(63000).getVolume(), DELTA);
+        history.recordTaps(60000, bathtub);
+        assertEquals(1, history.size());
+        assertEquals(50 + 10, history.replay(63000).getVolume(), DELTA);
+    }
+
+    @Test
+    public void freezingColdWater_shouldBeReplayed() throws Exception {
+        toggle(Tap.Type.COLD, 0);
+        history.recordBoiler(0, new Boiler(70, -5));
+
+        Bathtub replayed = history.replay(3000);
+        assertEquals(-5, replayed.getTap(Tap.Type.COLD).getTemperature());
+        assertEquals(70, replayed.getTap(Tap.Type.HOT).getTemperature());
+        assertEquals(-5, replayed.getHeat() / replayed.getVolume(), DELTA);
+    }
+
+    @Test
+    public void boilerOutOfRange_shouldBeClampedNotRejected() throws Exception {
+        history.recordBoiler(0, new Boiler(1 << 15, Integer.MIN_VALUE));
+
+        Bathtub replayed = history.replay(0);
+        assertEquals((1 << 14) - 1, replayed.getTap(Tap.Type.HOT).getTemperature());
+        assertEquals(-(1 << 14), replayed.getTap(Tap.Type.COLD).getTemperature());
+    }
+
+    @Test
+    public void tapOutOfRange_shouldBeClampedNotRejected() throws Exception {
+        bathtub.getTap(Tap.Type.HOT).setTemperature(100000);
+        toggle(Tap.Type.HOT, 0);
+
+        assertEquals(Short.MAX_VALUE, history.replay(0).getTap(Tap.Type.HOT).getTemperature());
+    }
+
+    private void toggle(Tap.Type type, long now) {
+        bathtub.setTapOpen(type, !bathtub.isTapOpen(type));
+        engine.onTapsChanged(now);
+        history.recordTaps(now, bathtub);
+    }
+
+    private void assertReplayed(long time, double volume, double temperature) {
+        Bathtub replayed = history.replay(time);
+        assertEquals(volume, replayed.getVolume(), DELTA);
+        assertEquals(temperature, replayed.getHeat() / replayed.getVolume(), DELTA);
+    }
+}
@@ -1,25 +1,48 @@
 package com.tae.bathtub.domain.interactor;
 
 import com.tae.bathtub.data.api.BathTubService;
+import com.tae.bathtub.data.api.BoilerConverterFactory;
 import com.tae.bathtub.data.api.ServiceCallback;
 import com.tae.bathtub.data.api.model.Boiler;
 import com.tae.bathtub.data.api.model.ErrorResponse;
+import com.tae.bathtub.data.cache.BoilerCache;
+import com.tae.bathtub.domain.scheduler.TestSchedulerProvider;
+import com.tae.bathtub.metrics.MetricsRegistry;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.Mock;
 
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 
+import dagger.Lazy;
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory;
+import retrofit2.converter.gson.GsonConverterFactory;
 import rx.Observable;
 import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -37,6 +60,14 @@ public class BoilerInteractorImplTest {
     @Mock
     ServiceCallback<Boiler, ErrorResponse> callback;
 
+    @Rule
+    public MockWebServer server = new MockWebServer();
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final TestScheduler breakerClock = new TestScheduler();
+
     @Before
     public void setUp() throws Exception {
         initMocks(this);
@@ -61,4 +92,225 @@ public class BoilerInteractorImplTest {
 
     }
 
+    @Test
+    public void concurrentGetBoiler_shouldHitServerOnce() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody("{\"hot_water\": 50, \"cold_water\": 10}")
+                .setBodyDelay(300, TimeUnit.MILLISECONDS));
+        BoilerInteractorImpl interactor = new BoilerInteractorImpl();
+        interactor.cache = new BoilerCache(0, TimeUnit.MILLISECONDS);
+        interactor.schedulers = new TestSchedulerProvider();
+        interactor.retryPolicy = quickRetries(2);
+        interactor.circuitBreaker = new CircuitBreaker(5, 1, TimeUnit.MINUTES, breakerClock);
+        interactor.registry = registry;
+        interactor.service = lazy(new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .addCallAdapterFactory(RxJavaCallAdapterFactory.createWithScheduler(Schedulers.io()))
+                .build()
+                .create(BathTubService.class));
+
+        int callers = 8;
+        final CountDownLatch responses = new CountDownLatch(callers);
+        final AtomicInteger hotWater = new AtomicInteger();
+        ServiceCallback<Boiler, ErrorResponse> countingCallback = new ServiceCallback<Boiler, ErrorResponse>() {
+            @Override
+            public void onServiceResponse(Boiler response) {
+                hotWater.addAndGet(response.getHot_water());
+                responses.countDown();
+            }
+
+            @Override
+            public void onServiceError(ErrorResponse error) {
+            }
+        };
+        for (int i = 0; i < callers; i++) {
+            interactor.getBoiler(countingCallback);
+        }
+
+        assertTrue("every caller gets the boiler", responses.await(5, TimeUnit.SECONDS));
+        assertEquals(50 * callers, hotWater.get());
+        assertEquals("one round trip for all callers", 1, server.getRequestCount());
+    }
+
+    @Test
+    public void staleBoiler_shouldRevalidateWithETag() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody("{hot_water: 50, cold_water: 10}"));
+        server.enqueue(new MockResponse().setResponseCode(304));
+        OkHttpClient client = new OkHttpClient.Builder().cache(new Cache(cacheDir.getRoot(), 1024 * 1024)).build();
+        BoilerInteractorImpl interactor = cachingInteractor(client, new BoilerCache(0, TimeUnit.MILLISECONDS));
+
+        assertEquals(new Boiler(50, 10), awaitBoiler(interactor));
+        assertEquals(new Boiler(50, 10), awaitBoiler(interactor));
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(null, server.takeRequest().getHeader("If-None-Match"));
+        RecordedRequest revalidation = server.takeRequest();
+        assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void freshBoiler_shouldNotHitNetwork() throws Exception {
+        server.enqueue(new MockResponse().setBody("{hot_water: 50, cold_water: 10}"));
+        BoilerInteractorImpl interactor = cachingInteractor(new OkHttpClient(), new BoilerCache(1, TimeUnit.HOURS));
+
+        awaitBoiler(interactor);
+        assertEquals(new Boiler(50, 10), awaitBoiler(interactor));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void offline_shouldFallBackToDiskCache() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody("{hot_water: 50, cold_water: 10}"));
+        OkHttpClient client = new OkHttpClient.Builder().cache(new Cache(cacheDir.getRoot(), 1024 * 1024)).build();
+        awaitBoiler(cachingInteractor(client, new BoilerCache(0, TimeUnit.MILLISECONDS)));
+        server.shutdown();
+
+        BoilerInteractorImpl coldStart = cachingInteractor(client, new BoilerCache(0, TimeUnit.MILLISECONDS));
+        assertEquals(new Boiler(50, 10), awaitBoiler(coldStart));
+    }
+
+    @Test
+    public void serverError_shouldBeRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("{hot_water: 60, cold_water: 20}"));
+        BoilerInteractorImpl interactor = cachingInteractor(new OkHttpClient(), new BoilerCache(0, TimeUnit.MILLISECONDS));
+
+        assertEquals(new Boiler(60, 20), awaitBoiler(interactor));
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, registry.counter(BoilerInteractorImpl.RETRIES).getCount());
+        assertEquals(1, registry.counter(BoilerInteractorImpl.SUCCESS).getCount());
+        assertEquals(0, registry.counter(BoilerInteractorImpl.FALLBACKS).getCount());
+    }
+
+    @Test
+    public void clientError_shouldNotBeRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(401));
+        BoilerInteractorImpl interactor = cachingInteractor(new OkHttpClient(), new BoilerCache(0, TimeUnit.MILLISECONDS));
+
+        assertEquals(Boiler.DEFAULT, awaitBoiler(interactor));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, registry.counter(BoilerInteractorImpl.RETRIES).getCount());
+        assertEquals(1, registry.counter(BoilerInteractorImpl.FAILURES).getCount());
+    }
+
+    @Test
+    public void silentServer_shouldTimeOutAndFallBackToDefault() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        BoilerInteractorImpl interactor = cachingInteractor(new OkHttpClient(), new BoilerCache(0, TimeUnit.MILLISECONDS));
+        interactor.retryPolicy = new RetryPolicy(200, 1, 10, 10, TimeUnit.MILLISECONDS, new Random(0));
+
+        assertEquals(Boiler.DEFAULT, awaitBoiler(interactor));
+        assertEquals(2, registry.counter(BoilerInteractorImpl.TIMEOUTS).getCount());
+        assertEquals(1, registry.counter(BoilerInteractorImpl.FALLBACKS).getCount());
+    }
+
+    @Test
+    public void failingServer_shouldServeLastBoilerWhileBreakerIsOpen() throws Exception {
+        server.enqueue(new MockResponse().setBody("{hot_water: 60, cold_water: 20}"));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        BoilerInteractorImpl interactor = cachingInteractor(new OkHttpClient(), new BoilerCache(0, TimeUnit.MILLISECONDS));
+        interactor.retryPolicy = quickRetries(0);
+        interactor.circuitBreaker = new CircuitBreaker(2, 30, TimeUnit.SECONDS, breakerClock);
+
+        assertEquals(new Boiler(60, 20), awaitBoiler(interactor));
+        assertEquals(new Boiler(60, 20), awaitBoiler(interactor));
+        assertEquals(new Boiler(60, 20), awaitBoiler(interactor));
+        assertEquals(CircuitBreaker.State.OPEN, interactor.circuitBreaker.getState());
+
+        assertEquals(new Boiler(60, 20), awaitBoiler(interactor));
+        assertEquals("an open breaker keeps calls off the server", 3, server.getRequestCount());
+        assertEquals(1, registry.counter(BoilerInteractorImpl.SHORT_CIRCUITS).getCount());
+        assertEquals(3, registry.counter(BoilerInteractorImpl.FALLBACKS).getCount());
+
+        server.enqueue(new MockResponse().setBody("{hot_water: 55, cold_water: 15}"));
+        breakerClock.advanceTimeBy(30, TimeUnit.SECONDS);
+        awaitBoiler(interactor);
+        assertEquals(4, server.getRequestCount());
+        assertEquals(CircuitBreaker.State.CLOSED, interactor.circuitBreaker.getState());
+        assertEquals(new Boiler(55, 15), interactor.cache.get());
+    }
+
+    @Test
+    public void fallbackBoiler_shouldStillRevalidateOnceRestored() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        BoilerInteractorImpl interactor = cachingInteractor(new OkHttpClient(), new BoilerCache(30, TimeUnit.MINUTES));
+        interactor.retryPolicy = quickRetries(0);
+        Boiler fallback = awaitBoiler(interactor);
+        assertEquals(Boiler.DEFAULT, fallback);
+        assertEquals(Long.MAX_VALUE, interactor.getBoilerAgeMillis(fallback));
+
+        server.enqueue(new MockResponse().setBody("{hot_water: 60, cold_water: 20}"));
+        BoilerInteractorImpl resumed = cachingInteractor(new OkHttpClient(), new BoilerCache(30, TimeUnit.MINUTES));
+        resumed.restoreBoiler(fallback, interactor.getBoilerAgeMillis(fallback));
+        awaitBoiler(resumed);
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(new Boiler(60, 20), resumed.cache.get());
+        assertTrue(resumed.getBoilerAgeMillis(new Boiler(60, 20)) < TimeUnit.MINUTES.toMillis(1));
+    }
+
+    private static RetryPolicy quickRetries(int maxRetries) {
+        return new RetryPolicy(1000, maxRetries, 10, 40, TimeUnit.MILLISECONDS, new Random(0));
+    }
+
+    private BoilerInteractorImpl cachingInteractor(OkHttpClient client, BoilerCache cache) {
+        BoilerInteractorImpl interactor = new BoilerInteractorImpl();
+        interactor.cache = cache;
+        interactor.schedulers = new TestSchedulerProvider();
+        interactor.retryPolicy = quickRetries(2);
+        interactor.circuitBreaker = new CircuitBreaker(5, 1, TimeUnit.MINUTES, breakerClock);
+        interactor.registry = registry;
+        interactor.service = lazy(new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(client)
+                .addConverterFactory(new BoilerConverterFactory())
+                .addCallAdapterFactory(RxJavaCallAdapterFactory.createWithScheduler(Schedulers.io()))
+                .build()
+                .create(BathTubService.class));
+        return interactor;
+    }
+
+    @Test
+    public void freshCache_shouldNotBuildTheNetworkStack() throws Exception {
+        BoilerInteractorImpl interactor = new BoilerInteractorImpl();
+        interactor.cache = new BoilerCache(1, TimeUnit.HOURS);
+        interactor.cache.put(new Boiler(50, 10));
+        interactor.schedulers = new TestSchedulerProvider();
+        final AtomicInteger built = new AtomicInteger();
+        interactor.service = new Lazy<BathTubService>() {
+            @Override
+            public BathTubService get() {
+                built.incrementAndGet();
+                return service;
+            }
+        };
+
+        assertEquals(new Boiler(50, 10), awaitBoiler(interactor));
+        assertEquals(0, built.get());
+    }
+
+    private static Lazy<BathTubService> lazy(final BathTubService service) {
+        return new Lazy<BathTubService>() {
+            @Override
+            public BathTubService get() {
+                return service;
+            }
+        };
+    }
+
+    /**
+     * @return the first boiler served, once the whole fetch including any revalidation has finished.
+     */
+    private Boiler awaitBoiler(BoilerInteractorImpl interactor) {
+        TestSubscriber<Boiler> subscriber = new TestSubscriber<>();
+        interactor.boilers().subscribe(subscriber);
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertTerminalEvent();
+        subscriber.assertNoErrors();
+        return subscriber.getOnNextEvents().get(0);
+    }
+
 }
@@ -0,0 +1,82 @@
+package com.tae.bathtub.domain.interactor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+
+import rx.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class CircuitBreakerTest {
+
+    private TestScheduler clock;
+    private CircuitBreaker breaker;
+
+    @Before
+    public void setUp() throws Exception {
+        clock = new TestScheduler();
+        breaker = new CircuitBreaker(3, 30, TimeUnit.SECONDS, clock);
+    }
+
+    @Test
+    public void failuresBelowThreshold_shouldKeepBreakerClosed() throws Exception {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void openBreaker_shouldRejectUntilCooledDown() throws Exception {
+        tripBreaker();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        clock.advanceTimeBy(29, TimeUnit.SECONDS);
+        assertFalse(breaker.allowRequest());
+        clock.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void halfOpenBreaker_shouldLetOneTrialThrough() throws Exception {
+        tripBreaker();
+        clock.advanceTimeBy(30, TimeUnit.SECONDS);
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void failedTrial_shouldOpenBreakerAgain() throws Exception {
+        tripBreaker();
+        clock.advanceTimeBy(30, TimeUnit.SECONDS);
+        assertTrue(breaker.allowRequest());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        clock.advanceTimeBy(10, TimeUnit.SECONDS);
+        assertFalse(breaker.allowRequest());
+    }
+
+    private void tripBreaker() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.allowRequest());
+            breaker.onFailure();
+        }
+    }
+}
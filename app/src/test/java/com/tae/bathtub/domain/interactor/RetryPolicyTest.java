@@ -0,0 +1,88 @@
+package com.tae.bathtub.domain.interactor;
+
+import com.tae.bathtub.metrics.Counter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+import retrofit2.adapter.rxjava.HttpException;
+import rx.Observable;
+import rx.Subscriber;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class RetryPolicyTest {
+
+    @Test
+    public void delays_shouldBeJitteredWithinBackoff() throws Exception {
+        RetryPolicy policy = new RetryPolicy(5, 10, 500, 8000, TimeUnit.MILLISECONDS, new Random(7));
+        for (int i = 0; i < 1000; i++) {
+            int retry = i % 8;
+            long backoff = Math.min(8000, 500L << retry);
+            long delay = policy.delayFor(retry);
+            assertTrue(delay + " below half of " + backoff, delay >= backoff / 2);
+            assertTrue(delay + " above " + backoff, delay <= backoff);
+        }
+    }
+
+    @Test
+    public void delays_shouldNotRepeatInLockstep() throws Exception {
+        RetryPolicy policy = new RetryPolicy(5, 10, 500, 8000, TimeUnit.MILLISECONDS, new Random(7));
+        long first = policy.delayFor(3);
+        boolean varied = false;
+        for (int i = 0; i < 10 && !varied; i++) {
+            varied = policy.delayFor(3) != first;
+        }
+        assertTrue(varied);
+    }
+
+    @Test
+    public void onlyTransientErrors_shouldBeRetryable() throws Exception {
+        assertTrue(RetryPolicy.isRetryable(new IOException()));
+        assertTrue(RetryPolicy.isRetryable(new TimeoutException()));
+        assertTrue(RetryPolicy.isRetryable(httpError(503)));
+        assertFalse(RetryPolicy.isRetryable(httpError(401)));
+        assertFalse(RetryPolicy.isRetryable(new IllegalStateException()));
+    }
+
+    @Test
+    public void retries_shouldStopAfterMaxRetries() throws Exception {
+        RetryPolicy policy = new RetryPolicy(5, 2, 100, 100, TimeUnit.MILLISECONDS, new Random(7));
+        TestScheduler scheduler = new TestScheduler();
+        Counter retries = new Counter();
+        final AtomicInteger attempts = new AtomicInteger();
+        TestSubscriber<Object> subscriber = new TestSubscriber<>();
+
+        Observable.create(new Observable.OnSubscribe<Object>() {
+            @Override
+            public void call(Subscriber<? super Object> subscriber) {
+                attempts.incrementAndGet();
+                subscriber.onError(new IOException("connection reset"));
+            }
+        }).retryWhen(policy.retries(scheduler, retries)).subscribe(subscriber);
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        subscriber.assertError(IOException.class);
+        assertEquals(3, attempts.get());
+        assertEquals(2, retries.getCount());
+    }
+
+    private static HttpException httpError(int code) {
+        return new HttpException(Response.error(code, ResponseBody.create(MediaType.parse("text/plain"), "")));
+    }
+}
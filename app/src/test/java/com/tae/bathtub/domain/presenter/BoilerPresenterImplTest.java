@@ -2,13 +2,25 @@ package com.tae.bathtub.domain.presenter;
 
 import android.support.annotation.NonNull;
 
+import com.tae.bathtub.data.api.NetworkConstants;
 import com.tae.bathtub.data.api.ServiceCallback;
 import com.tae.bathtub.data.api.model.Boiler;
 import com.tae.bathtub.data.api.model.ErrorResponse;
 import com.tae.bathtub.data.local.Bathtub;
+import com.tae.bathtub.data.local.FillEngine;
+import com.tae.bathtub.data.local.SessionSnapshot;
+import com.tae.bathtub.data.local.SessionStore;
 import com.tae.bathtub.data.local.Tap;
+import com.tae.bathtub.data.local.TapHistory;
 import com.tae.bathtub.domain.interactor.BoilerInteractor;
+import com.tae.bathtub.domain.scheduler.TestSchedulerProvider;
+import com.tae.bathtub.metrics.MetricsRegistry;
+import com.tae.bathtub.metrics.SimulationTrace;
+import com.tae.bathtub.metrics.Tracer;
+import com.tae.bathtub.presentation.BathtubView;
+import com.tae.bathtub.presentation.ViewUpdateBatcher;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -17,9 +29,16 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import rx.Observable;
@@ -30,13 +49,22 @@ import rx.observers.TestSubscriber;
 import rx.schedulers.Schedulers;
 import rx.schedulers.TestScheduler;
 import rx.subjects.TestSubject;
+import rx.subscriptions.Subscriptions;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyFloat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 
@@ -48,6 +76,8 @@ public class BoilerPresenterImplTest {
 
     @Mock
     BoilerInteractor interactor;
+    @Mock
+    BathtubView view;
 
     @Captor
     private ArgumentCaptor<ServiceCallback<Boiler,ErrorResponse>> boilerCallbackCaptor;
@@ -56,17 +86,36 @@ public class BoilerPresenterImplTest {
     private Boiler boiler;
     private ErrorResponse errorResponse;
     private int level;
+    private TestScheduler simulationScheduler;
+    private ExecutorService simulationExecutor;
+    private File sessionFile;
 
     @Before
     public void setUp() throws Exception {
         initMocks(this);
+        simulationScheduler = new TestScheduler();
+        simulationExecutor = Executors.newSingleThreadExecutor();
         presenter = new BoilerPresenterImpl();
         presenter.interactor = interactor;
+        presenter.schedulers = new TestSchedulerProvider(simulationScheduler, Schedulers.immediate());
+        presenter.trace = new SimulationTrace(Tracer.DISABLED);
+        presenter.viewUpdates = new ViewUpdateBatcher(presenter.schedulers, presenter.trace);
+        presenter.attachView(view);
+        presenter.simulationExecutor = simulationExecutor;
+        presenter.history = new TapHistory(TapHistory.DEFAULT_CAPACITY, TapHistory.DEFAULT_SNAPSHOT_INTERVAL);
         boiler = new Boiler(50, 10);
         errorResponse = new ErrorResponse("Service fail");
         level = 0;
     }
 
+    @After
+    public void tearDown() throws Exception {
+        simulationExecutor.shutdownNow();
+        if (sessionFile != null) {
+            sessionFile.delete();
+        }
+    }
+
     @Test
     public void presenter_shouldNotBeNull() throws Exception {
         assertNotNull(presenter);
@@ -106,12 +155,14 @@ public class BoilerPresenterImplTest {
         initBoilerService_should_success();
         Bathtub bathtub = new Bathtub();
         List<Tap> taps = new ArrayList<>(2);
-        taps.add(new Tap(Tap.Type.COLD.name(), 10, true));
-        taps.add(new Tap(Tap.Type.HOT.name(), 50, true));
+        taps.add(new Tap(Tap.Type.COLD, 10, true));
+        taps.add(new Tap(Tap.Type.HOT, 50, true));
         bathtub.setTaps(taps);
-        assertTrue(bathtub.areTwoTapsOpen(taps));
-        assertEquals("Temperature is  30", 30,
-                bathtub.getTemperatureFromTaps(taps.get(0).getTemperature(),taps.get(1).getTemperature()));
+        assertTrue(bathtub.areTwoTapsOpen());
+        FillEngine engine = new FillEngine(bathtub, 0);
+        engine.onTapsChanged(0);
+        // Mixed by flow: 10 units at 10 and 12 units at 50 every 3 seconds.
+        assertEquals("Temperature is 31.8", (10 * 10 + 12 * 50) / 22d, engine.temperatureAt(3000), 0.001);
     }
 
     @Test
@@ -125,12 +176,477 @@ public class BoilerPresenterImplTest {
 
     }
 
+    @Test
+    public void repeatedFillCycles_shouldKeepThreadCountBounded() throws Exception {
+        initBoilerService_should_success();
+        Observable.just(0).subscribeOn(Schedulers.io()).toBlocking().single();
+        Observable.just(0).subscribeOn(Schedulers.computation()).toBlocking().single();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+
+        for (int cycle = 0; cycle < 50; cycle++) {
+            Bathtub bathtub = closedBathtub();
+            presenter.getBathtub(bathtub);
+            presenter.toggleTap(Tap.Type.COLD);
+            simulationScheduler.advanceTimeBy(3 * 30, TimeUnit.SECONDS);
+            assertTrue(bathtub.getLevel() >= Bathtub.MAX_CAPACITY);
+
+            // The shared RxJava pools must survive a completed fill.
+            assertEquals(cycle, (int) Observable.just(cycle).subscribeOn(Schedulers.io()).toBlocking().single());
+            assertEquals(cycle, (int) Observable.just(cycle).subscribeOn(Schedulers.computation()).toBlocking().single());
+        }
+
+        assertTrue("threads before " + threadsBefore + " after " + threads.getThreadCount(),
+                threads.getThreadCount() <= threadsBefore + 2);
+        presenter.release();
+        assertTrue(simulationExecutor.isShutdown());
+    }
+
+    @Test
+    public void bothTapsFill_shouldMixTemperatureByFlow() throws Exception {
+        initBoilerService_should_success();
+        Bathtub bathtub = getBathtub();
+        presenter.getBathtub(bathtub);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+
+        assertEquals(Bathtub.MAX_CAPACITY, bathtub.getLevel());
+        // (10 * 10 + 50 * 12) / 22 rounded
+        assertEquals(32, bathtub.getTemperature());
+        verify(view, atLeastOnce()).displayTemperature(32);
+    }
+
+    @Test
+    public void singleTap_shouldFillToOverflowInVirtualTime() throws Exception {
+        initBoilerService_should_success();
+        Bathtub bathtub = closedBathtub();
+        presenter.getBathtub(bathtub);
+        presenter.toggleTap(Tap.Type.COLD);
+        settleTaps();
+
+        // 220 units at 10/3 per second take 66 seconds, 22 ticks.
+        simulationScheduler.advanceTimeBy(65, TimeUnit.SECONDS);
+        assertTrue(bathtub.getLevel() < Bathtub.MAX_CAPACITY);
+        verify(view, never()).waterLevelOverflow(true);
+
+        simulationScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals(Bathtub.MAX_CAPACITY, bathtub.getLevel());
+        verify(view).waterLevelOverflow(true);
+        verify(view).showToast(anyString());
+        verify(view, atLeastOnce()).increaseWaterLevel(-Bathtub.MAX_CAPACITY);
+        verify(view, atLeastOnce()).displayTemperature(10);
+
+        // Neither the clock nor the overflow timer are left behind.
+        simulationScheduler.advanceTimeBy(1, TimeUnit.HOURS);
+        verify(view, times(1)).waterLevelOverflow(true);
+        verify(view, times(1)).showToast(anyString());
+    }
+
+    @Test
+    public void closedTaps_shouldPauseFillUntilReopened() throws Exception {
+        initBoilerService_should_success();
+        Bathtub bathtub = closedBathtub();
+        presenter.getBathtub(bathtub);
+        presenter.toggleTap(Tap.Type.HOT);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+
+        presenter.toggleTap(Tap.Type.HOT);
+        settleTaps();
+        int pausedLevel = bathtub.getLevel();
+        assertEquals(120, pausedLevel);
+        simulationScheduler.advanceTimeBy(10, TimeUnit.MINUTES);
+        assertEquals(pausedLevel, bathtub.getLevel());
+        verify(view, never()).waterLevelOverflow(true);
+
+        presenter.toggleTap(Tap.Type.HOT);
+        settleTaps();
+        // The remaining 100 units at 4 per second.
+        simulationScheduler.advanceTimeBy(25, TimeUnit.SECONDS);
+        assertEquals(Bathtub.MAX_CAPACITY, bathtub.getLevel());
+        verify(view).waterLevelOverflow(true);
+    }
+
+    @Test
+    public void tracedFill_shouldRecordEveryTickAndDrainBacklog() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        presenter.trace = new SimulationTrace(new Tracer(registry));
+        presenter.viewUpdates = new ViewUpdateBatcher(presenter.schedulers, presenter.trace);
+        presenter.attachView(view);
+        initBoilerService_should_success();
+        presenter.getBathtub(closedBathtub());
+        presenter.toggleTap(Tap.Type.COLD);
+        settleTaps();
+
+        simulationScheduler.advanceTimeBy(66, TimeUnit.SECONDS);
+
+        // 21 clock ticks before the tub is full at 66s, then the overflow timer.
+        assertEquals(22, registry.histogram(SimulationTrace.TICK).getCount());
+        assertEquals(22, registry.histogram(SimulationTrace.SAMPLE).getCount());
+        // The main thread runs in place, so the overflow and completion commits dispatch on their own.
+        assertEquals(24, registry.histogram(SimulationTrace.DISPATCH).getCount());
+        assertEquals(0, registry.gauge(SimulationTrace.BACKLOG).getValue());
+        assertEquals(1, registry.gauge(SimulationTrace.BACKLOG).getMax());
+    }
+
+    @Test
+    public void droppedTicks_shouldLeaveTheBacklog() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        TestScheduler mainThread = new TestScheduler();
+        presenter.schedulers = new TestSchedulerProvider(simulationScheduler, mainThread);
+        presenter.trace = new SimulationTrace(new Tracer(registry));
+        presenter.viewUpdates = new ViewUpdateBatcher(presenter.schedulers, presenter.trace);
+        presenter.attachView(view);
+        initBoilerService_should_success();
+        presenter.getBathtub(closedBathtub());
+        presenter.toggleTap(Tap.Type.COLD);
+        settleTaps();
+        mainThread.triggerActions();
+
+        // The main thread stalls while the clock keeps ticking.
+        simulationScheduler.advanceTimeBy(9, TimeUnit.SECONDS);
+        assertEquals(3, registry.gauge(SimulationTrace.BACKLOG).getValue());
+        presenter.toggleTap(Tap.Type.HOT);
+        settleTaps();
+        // A new bathtub drops the flow, and the ticks queued for it, before the main thread catches up.
+        presenter.getBathtub(closedBathtub());
+        assertEquals(0, registry.gauge(SimulationTrace.BACKLOG).getValue());
+
+        mainThread.triggerActions();
+        simulationScheduler.advanceTimeBy(9, TimeUnit.SECONDS);
+        mainThread.triggerActions();
+        assertEquals(0, registry.gauge(SimulationTrace.BACKLOG).getValue());
+        assertEquals(3, registry.gauge(SimulationTrace.BACKLOG).getMax());
+    }
+
+    @Test
+    public void rapidToggles_shouldCoalesceIntoOneFlow() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        presenter.trace = new SimulationTrace(new Tracer(registry));
+        initBoilerService_should_success();
+        Bathtub bathtub = closedBathtub();
+        presenter.getBathtub(bathtub);
+
+        for (int i = 0; i < 5; i++) {
+            presenter.toggleTap(Tap.Type.COLD);
+            simulationScheduler.advanceTimeBy(10, TimeUnit.MILLISECONDS);
+        }
+        settleTaps();
+        simulationScheduler.advanceTimeBy(3, TimeUnit.SECONDS);
+
+        assertTrue(bathtub.isTapOpen(Tap.Type.COLD));
+        assertEquals(1, registry.histogram(SimulationTrace.TICK).getCount());
+    }
+
+    @Test
+    public void toggles_shouldChangeTheFlowBeforeTheySettle() throws Exception {
+        initBoilerService_should_success();
+        Bathtub bathtub = closedBathtub();
+        presenter.getBathtub(bathtub);
+        presenter.toggleTap(Tap.Type.COLD);
+        simulationScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        presenter.toggleTap(Tap.Type.HOT);
+        simulationScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        presenter.toggleTap(Tap.Type.HOT);
+        simulationScheduler.advanceTimeBy(29800, TimeUnit.MILLISECONDS);
+
+        presenter.toggleTap(Tap.Type.COLD);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+
+        // 30 seconds of cold water and the hot tap's tenth of a second, exactly as they were toggled.
+        assertEquals(100 + 0.4, bathtub.getVolume(), 0.001);
+    }
+
+    @Test
+    public void togglesCancellingOut_shouldNotStartFlow() throws Exception {
+        initBoilerService_should_success();
+        Bathtub bathtub = closedBathtub();
+        presenter.getBathtub(bathtub);
+
+        presenter.toggleTap(Tap.Type.HOT);
+        presenter.toggleTap(Tap.Type.HOT);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+
+        assertEquals(0, bathtub.getLevel());
+        verify(view, never()).increaseWaterLevel(anyFloat());
+    }
+
+    @Test
+    public void switchingFlow_shouldDropPreviousClock() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        presenter.trace = new SimulationTrace(new Tracer(registry));
+        initBoilerService_should_success();
+        presenter.getBathtub(closedBathtub());
+        presenter.toggleTap(Tap.Type.COLD);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        presenter.toggleTap(Tap.Type.HOT);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(3, TimeUnit.SECONDS);
+
+        // Only the clock started with both taps is ticking.
+        assertEquals(1, registry.histogram(SimulationTrace.TICK).getCount());
+    }
+
+    @Test
+    public void boilerUpdates_shouldChangeTheWaterPouredFromThenOn() throws Exception {
+        when(interactor.watchBoiler(any(ServiceCallback.class))).thenReturn(Subscriptions.empty());
+        initBoilerService_should_success();
+        presenter.watchBoiler();
+        verify(interactor).watchBoiler(boilerCallbackCaptor.capture());
+        Bathtub bathtub = new Bathtub(Arrays.asList(new Tap(Tap.Type.COLD, 10, false), new Tap(Tap.Type.HOT, 50, true)));
+        presenter.getBathtub(bathtub);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+        assertEquals(50, bathtub.getTemperature());
+
+        boilerCallbackCaptor.getValue().onServiceResponse(new Boiler(30, 10));
+        assertEquals(30, bathtub.getTap(Tap.Type.HOT).getTemperature());
+        assertEquals(30, presenter.getHotWater());
+        simulationScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+
+        // Roughly equal volumes at 50 and 30 degrees.
+        assertEquals(40, bathtub.getTemperature(), 1);
+    }
+
+    @Test
+    public void detachedView_shouldNotStopTheSimulation() throws Exception {
+        initBoilerService_should_success();
+        presenter.getBathtub(closedBathtub());
+        presenter.toggleTap(Tap.Type.COLD);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+
+        presenter.detachView();
+        simulationScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+        int level = presenter.getCurrentBathtub().getLevel();
+        assertTrue(level > 0);
+
+        BathtubView rotated = mock(BathtubView.class);
+        presenter.attachView(rotated);
+        verify(rotated).increaseWaterLevel(-level);
+        verify(interactor, times(1)).getBoiler(any(ServiceCallback.class));
+    }
+
+    @Test
+    public void savedSession_shouldRestoreBathtubAndBoiler() throws Exception {
+        presenter.sessionStore = sessionStore();
+        initBoilerService_should_success();
+        presenter.getBathtub(getBathtub());
+        settleTaps();
+        // Half full, a full bath would not be kept.
+        simulationScheduler.advanceTimeBy(15, TimeUnit.SECONDS);
+        presenter.saveSession();
+
+        BoilerPresenterImpl resumed = new BoilerPresenterImpl();
+        resumed.interactor = interactor;
+        resumed.sessionStore = presenter.sessionStore;
+        Bathtub restored = resumed.restoreSession();
+
+        assertTrue(restored.getLevel() > 0);
+        assertTrue(restored.areTwoTapsOpen());
+        assertEquals(boiler.getHot_water(), resumed.getHotWater());
+        verify(interactor).restoreBoiler(any(Boiler.class), anyLong());
+    }
+
+    @Test
+    public void fallbackBoiler_shouldNotBeRestoredAsFresh() throws Exception {
+        presenter.sessionStore = sessionStore();
+        // The fetch failed and the interactor fell back to a boiler the server never sent.
+        when(interactor.getBoilerAgeMillis(Boiler.DEFAULT)).thenReturn(Long.MAX_VALUE);
+        presenter.initBoilerService();
+        verify(interactor).getBoiler(boilerCallbackCaptor.capture());
+        boilerCallbackCaptor.getValue().onServiceResponse(Boiler.DEFAULT);
+        presenter.getBathtub(getBathtub());
+        presenter.saveSession();
+
+        BoilerPresenterImpl resumed = new BoilerPresenterImpl();
+        resumed.interactor = interactor;
+        resumed.sessionStore = presenter.sessionStore;
+        resumed.restoreSession();
+
+        ArgumentCaptor<Long> age = ArgumentCaptor.forClass(Long.class);
+        verify(interactor).restoreBoiler(eq(Boiler.DEFAULT), age.capture());
+        assertTrue(age.getValue() >= TimeUnit.MINUTES.toMillis(NetworkConstants.BOILER_CACHE_TTL_MINUTES));
+    }
+
+    @Test
+    public void fullBath_shouldNotBeRestored() throws Exception {
+        presenter.sessionStore = sessionStore();
+        initBoilerService_should_success();
+        presenter.getBathtub(getBathtub());
+        settleTaps();
+        simulationScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+        verify(view).waterLevelOverflow(true);
+        presenter.saveSession();
+        assertNull(presenter.restoreSession());
+
+        // The next start begins a new bath, and its taps fill it.
+        Bathtub bathtub = closedBathtub();
+        presenter.getBathtub(bathtub);
+        presenter.toggleTap(Tap.Type.COLD);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(3, TimeUnit.SECONDS);
+        assertEquals(10, bathtub.getLevel());
+    }
+
+    @Test
+    public void fullSavedBath_shouldBeCleared() throws Exception {
+        presenter.sessionStore = sessionStore();
+        Bathtub full = getBathtub();
+        full.setLevel(Bathtub.MAX_CAPACITY);
+        presenter.sessionStore.save(new SessionSnapshot(full, boiler, System.currentTimeMillis()));
+
+        assertNull(presenter.restoreSession());
+        assertNull(presenter.sessionStore.load());
+        // The boiler is still good, only the bath is over.
+        assertEquals(boiler.getHot_water(), presenter.getHotWater());
+    }
+
+    @Test
+    public void waterBeforeBoiler_shouldBeTheDefault() throws Exception {
+        presenter.initBoilerService();
+        assertEquals(Boiler.DEFAULT.getHot_water(), presenter.getHotWater());
+        assertEquals(Boiler.DEFAULT.getCold_water(), presenter.getColdWater());
+    }
+
+    @Test
+    public void tapsBeforeBoiler_shouldBeReplayedWhenItLands() throws Exception {
+        TestSubscriber<Boolean> readiness = new TestSubscriber<>();
+        presenter.boilerReady().subscribe(readiness);
+        presenter.initBoilerService();
+        verify(interactor).getBoiler(boilerCallbackCaptor.capture());
+        Bathtub bathtub = new Bathtub(Arrays.asList(new Tap(Tap.Type.COLD), new Tap(Tap.Type.HOT)));
+        presenter.getBathtub(bathtub);
+
+        presenter.toggleTap(Tap.Type.COLD);
+        presenter.toggleTap(Tap.Type.HOT);
+        presenter.toggleTap(Tap.Type.HOT);
+        assertTrue("the tap turns at once", bathtub.isTapOpen(Tap.Type.COLD));
+        settleTaps();
+        simulationScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+        assertEquals("no water without a boiler", 0, bathtub.getLevel());
+
+        boilerCallbackCaptor.getValue().onServiceResponse(boiler);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+
+        assertEquals(100, bathtub.getLevel());
+        assertEquals(10, bathtub.getTemperature());
+        assertFalse(bathtub.isTapOpen(Tap.Type.HOT));
+        readiness.assertValues(false, true);
+    }
+
+    @Test
+    public void failedBoiler_shouldReleaseHeldTapsOnDefault() throws Exception {
+        presenter.initBoilerService();
+        verify(interactor).getBoiler(boilerCallbackCaptor.capture());
+        Bathtub bathtub = closedBathtub();
+        presenter.getBathtub(bathtub);
+        presenter.toggleTap(Tap.Type.HOT);
+
+        boilerCallbackCaptor.getValue().onServiceError(errorResponse);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+
+        assertTrue(bathtub.getLevel() > 0);
+    }
+
+    @Test
+    public void tapHistory_shouldReplayTheLiveFill() throws Exception {
+        initBoilerService_should_success();
+        Bathtub bathtub = closedBathtub();
+        presenter.getBathtub(bathtub);
+        presenter.toggleTap(Tap.Type.COLD);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(12, TimeUnit.SECONDS);
+        presenter.toggleTap(Tap.Type.HOT);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(9, TimeUnit.SECONDS);
+        presenter.toggleTap(Tap.Type.COLD);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(6, TimeUnit.SECONDS);
+
+        Bathtub replayed = presenter.getTapHistory().replay(simulationScheduler.now());
+        assertEquals(bathtub.getVolume(), replayed.getVolume(), 0.001);
+        assertEquals(bathtub.getTemperature(), replayed.getTemperature());
+        assertEquals(bathtub.getOpenTaps(), replayed.getOpenTaps());
+    }
+
+    @Test
+    public void tapHistory_shouldReplayARestoredFill() throws Exception {
+        presenter.sessionStore = sessionStore();
+        Bathtub saved = getBathtub();
+        saved.setLevel(50);
+        presenter.sessionStore.save(new SessionSnapshot(saved, boiler, System.currentTimeMillis()));
+        Bathtub bathtub = presenter.restoreSession();
+        double restoredVolume = bathtub.getVolume();
+        long start = simulationScheduler.now();
+        presenter.getBathtub(bathtub);
+
+        // The open taps only start pouring once they settle.
+        simulationScheduler.advanceTimeBy(BoilerPresenterImpl.TAP_DEBOUNCE_MILLIS / 2, TimeUnit.MILLISECONDS);
+        assertEquals(restoredVolume, presenter.getTapHistory().replay(simulationScheduler.now()).getVolume(), 0.001);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(9, TimeUnit.SECONDS);
+        presenter.toggleTap(Tap.Type.HOT);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(6, TimeUnit.SECONDS);
+
+        Bathtub replayed = presenter.getTapHistory().replay(simulationScheduler.now());
+        assertEquals(bathtub.getVolume(), replayed.getVolume(), 0.001);
+        assertEquals(bathtub.getTemperature(), replayed.getTemperature());
+        assertEquals(bathtub.getOpenTaps(), replayed.getOpenTaps());
+        assertEquals(restoredVolume, presenter.getTapHistory().replay(start).getVolume(), 0.001);
+    }
+
+    @Test
+    public void unusualBoiler_shouldNotFailTheTaps() throws Exception {
+        Bathtub bathtub = closedBathtub();
+        presenter.getBathtub(bathtub);
+        presenter.initBoilerService();
+        verify(interactor).getBoiler(boilerCallbackCaptor.capture());
+        // The converter accepts any int, the tap history cannot hold these exactly.
+        boilerCallbackCaptor.getValue().onServiceResponse(new Boiler(1 << 15, -5));
+        presenter.toggleTap(Tap.Type.COLD);
+        settleTaps();
+        simulationScheduler.advanceTimeBy(3, TimeUnit.SECONDS);
+
+        assertEquals(10, bathtub.getLevel());
+        assertEquals(-5, bathtub.getTemperature());
+        assertEquals(-5, presenter.getTapHistory().replay(simulationScheduler.now()).getTemperature());
+    }
+
+    /**
+     * A store that writes in place into a temporary file, deleted after the test.
+     */
+    private SessionStore sessionStore() throws IOException {
+        sessionFile = File.createTempFile("session", ".bin");
+        return new SessionStore(sessionFile, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }, Tracer.DISABLED);
+    }
+
+    private void settleTaps() {
+        simulationScheduler.advanceTimeBy(BoilerPresenterImpl.TAP_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static Bathtub closedBathtub() {
+        return new Bathtub(Arrays.asList(new Tap(Tap.Type.COLD, 10, false), new Tap(Tap.Type.HOT, 50, false)));
+    }
+
     @NonNull
     private Bathtub getBathtub() {
         Bathtub bathtub = new Bathtub();
         List<Tap> taps = new ArrayList<>(2);
-        taps.add(new Tap(Tap.Type.COLD.name(), 10, true));
-        taps.add(new Tap(Tap.Type.HOT.name(), 50, true));
+        taps.add(new Tap(Tap.Type.COLD, 10, true));
+        taps.add(new Tap(Tap.Type.HOT, 50, true));
         bathtub.setTaps(taps);
         return bathtub;
     }
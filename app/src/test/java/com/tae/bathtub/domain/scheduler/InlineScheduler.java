@@ -0,0 +1,44 @@
+package com.tae.bathtub.domain.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Runs every action on the calling thread without allocating, unlike the schedulers RxJava ships.
+ * Delays are ignored. Shared with the benchmark module, which measures the same paths.
+ */
+public class InlineScheduler extends Scheduler {
+
+    private final Worker worker = new Worker() {
+        private final Subscription subscription = Subscriptions.unsubscribed();
+
+        @Override
+        public Subscription schedule(Action0 action) {
+            action.call();
+            return subscription;
+        }
+
+        @Override
+        public Subscription schedule(Action0 action, long delayTime, TimeUnit unit) {
+            return schedule(action);
+        }
+
+        @Override
+        public void unsubscribe() {
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return false;
+        }
+    };
+
+    @Override
+    public Worker createWorker() {
+        return worker;
+    }
+}
@@ -0,0 +1,45 @@
+package com.tae.bathtub.domain.scheduler;
+
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
+
+/**
+ * Runs the simulation in virtual time on a {@link TestScheduler} and delivers to the view in place.
+ * Network timers run in real time unless a scheduler is given for them.
+ */
+public class TestSchedulerProvider implements SchedulerProvider {
+
+    private final TestScheduler simulation;
+    private final Scheduler mainThread;
+    private final Scheduler computation;
+
+    public TestSchedulerProvider() {
+        this(new TestScheduler(), Schedulers.immediate());
+    }
+
+    public TestSchedulerProvider(TestScheduler simulation, Scheduler mainThread) {
+        this(simulation, mainThread, Schedulers.computation());
+    }
+
+    public TestSchedulerProvider(TestScheduler simulation, Scheduler mainThread, Scheduler computation) {
+        this.simulation = simulation;
+        this.mainThread = mainThread;
+        this.computation = computation;
+    }
+
+    @Override
+    public Scheduler mainThread() {
+        return mainThread;
+    }
+
+    @Override
+    public TestScheduler simulation() {
+        return simulation;
+    }
+
+    @Override
+    public Scheduler computation() {
+        return computation;
+    }
+}
@@ -0,0 +1,64 @@
+package com.tae.bathtub.metrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(JUnit4.class)
+public class HistogramTest {
+
+    @Test
+    public void percentiles_shouldReportBucketUpperBound() throws Exception {
+        Histogram histogram = new Histogram(new long[]{10, 100, 1000});
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(50);
+        }
+        histogram.record(5000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(10, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(99));
+        assertEquals(5000, histogram.getPercentile(100));
+        assertEquals(5000, histogram.getMax());
+        assertEquals((90 * 5 + 9 * 50 + 5000) / 100d, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    public void concurrentRecords_shouldAllBeCounted() throws Exception {
+        final Histogram histogram = new Histogram(Histogram.LATENCY_MILLIS);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i % 100 + offset);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000, histogram.getCount());
+        assertEquals(102, histogram.getMax());
+    }
+
+    @Test
+    public void registry_shouldReturnSameMetricForName() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        assertSame(registry.histogram("a"), registry.histogram("a"));
+        assertSame(registry.counter("b"), registry.counter("b"));
+        registry.counter("b").add(3);
+        assertEquals("b 3\n", registry.dump().substring(registry.dump().indexOf("b ")));
+    }
+}
@@ -0,0 +1,47 @@
+package com.tae.bathtub.metrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class TracerTest {
+
+    @Test
+    public void enabledTracer_shouldRecordIntoRegistry() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        Tracer tracer = new Tracer(registry);
+        Tracer.Section section = tracer.section("stage");
+        Tracer.Depth depth = tracer.depth("queue");
+
+        long start = section.begin();
+        Thread.sleep(2);
+        section.end(start);
+        depth.enter();
+        depth.enter();
+        depth.exit();
+        tracer.count("events").increment();
+
+        assertTrue(tracer.isEnabled());
+        assertEquals(1, registry.histogram("stage").getCount());
+        assertTrue(registry.histogram("stage").getMax() >= 2000);
+        assertEquals(1, registry.gauge("queue").getValue());
+        assertEquals(2, registry.gauge("queue").getMax());
+        assertEquals(1, registry.counter("events").getCount());
+    }
+
+    @Test
+    public void disabledTracer_shouldRecordNothing() throws Exception {
+        Tracer.Section section = Tracer.DISABLED.section("stage");
+        section.end(section.begin());
+        Tracer.DISABLED.depth("queue").enter();
+        Tracer.DISABLED.count("events").increment();
+
+        assertFalse(Tracer.DISABLED.isEnabled());
+        assertEquals(0, section.begin());
+    }
+}
@@ -0,0 +1,27 @@
+package com.tae.bathtub.presentation;
+
+/**
+ * A view that renders nothing, for measuring the paths that feed it. Shared with the benchmark module.
+ */
+public class NoOpBathtubView implements BathtubView {
+
+    @Override
+    public void waterLevelOverflow(boolean overflow) {
+    }
+
+    @Override
+    public void increaseWaterLevel(float level) {
+    }
+
+    @Override
+    public void displayTemperature(int temp) {
+    }
+
+    @Override
+    public void setTemperatureIndicator(float indicatorPosition) {
+    }
+
+    @Override
+    public void showToast(String message) {
+    }
+}
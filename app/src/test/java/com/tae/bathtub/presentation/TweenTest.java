@@ -0,0 +1,42 @@
+package com.tae.bathtub.presentation;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class TweenTest {
+
+    private static final float DELTA = 0.001f;
+
+    @Test
+    public void tween_shouldMoveLinearlyBetweenItsEndPoints() throws Exception {
+        Tween tween = new Tween();
+        tween.retarget(-45f, 45f);
+        assertEquals(-45f, tween.valueAt(0f), DELTA);
+        assertEquals(0f, tween.valueAt(0.5f), DELTA);
+        assertEquals(45f, tween.valueAt(1f), DELTA);
+    }
+
+    @Test
+    public void retargetMidway_shouldCarryOnFromTheCurrentValue() throws Exception {
+        Tween tween = new Tween();
+        tween.retarget(0f, -100f);
+        float current = tween.valueAt(0.3f);
+        tween.retarget(current, -20f);
+
+        assertEquals(-30f, tween.valueAt(0f), DELTA);
+        assertEquals(-25f, tween.valueAt(0.5f), DELTA);
+        assertEquals(-20f, tween.valueAt(1f), DELTA);
+    }
+
+    @Test
+    public void fraction_shouldFollowThePlayTimeWithinTheDuration() throws Exception {
+        assertEquals(0f, Tween.fraction(-16, 500), DELTA);
+        assertEquals(0.5f, Tween.fraction(250, 500), DELTA);
+        assertEquals(1f, Tween.fraction(516, 500), DELTA);
+        assertEquals(1f, Tween.fraction(0, 0), DELTA);
+    }
+}
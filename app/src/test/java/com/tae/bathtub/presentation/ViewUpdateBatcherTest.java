@@ -0,0 +1,157 @@
+package com.tae.bathtub.presentation;
+
+import com.tae.bathtub.domain.scheduler.InlineScheduler;
+import com.tae.bathtub.domain.scheduler.TestSchedulerProvider;
+import com.tae.bathtub.metrics.SimulationTrace;
+import com.tae.bathtub.metrics.Tracer;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import java.lang.management.ManagementFactory;
+
+import rx.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyFloat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(JUnit4.class)
+public class ViewUpdateBatcherTest {
+
+    private static final int FRAMES = 10000;
+
+    @Mock
+    BathtubView view;
+
+    private TestScheduler mainThread;
+    private ViewUpdateBatcher batcher;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        mainThread = new TestScheduler();
+        batcher = new ViewUpdateBatcher(new TestSchedulerProvider(new TestScheduler(), mainThread),
+                new SimulationTrace(Tracer.DISABLED));
+        batcher.attach(view);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        batcher.release();
+    }
+
+    @Test
+    public void updatesWithinAFrame_shouldRenderLatestStateOnce() throws Exception {
+        for (int tick = 1; tick <= 5; tick++) {
+            batcher.edit().setLevel(-tick);
+            batcher.edit().setTemperature(20 + tick);
+            batcher.commit();
+        }
+        verifyZeroInteractions(view);
+
+        mainThread.triggerActions();
+
+        verify(view, times(1)).increaseWaterLevel(-5f);
+        verify(view, times(1)).displayTemperature(25);
+        verify(view, never()).setTemperatureIndicator(anyFloat());
+        verifyNoMoreInteractions(view);
+    }
+
+    @Test
+    public void cleanState_shouldNotRenderAgain() throws Exception {
+        batcher.edit().setTemperature(30);
+        batcher.commit();
+        mainThread.triggerActions();
+        batcher.commit();
+        mainThread.triggerActions();
+
+        verify(view, times(1)).displayTemperature(anyInt());
+    }
+
+    @Test
+    public void updatesWhileDetached_shouldRenderIntoNextView() throws Exception {
+        batcher.edit().setLevel(-10);
+        batcher.commit();
+        batcher.detach();
+        mainThread.triggerActions();
+        batcher.edit().setLevel(-20);
+        batcher.edit().setMessage("full");
+        batcher.commit();
+        mainThread.triggerActions();
+        verifyZeroInteractions(view);
+
+        BathtubView next = mock(BathtubView.class);
+        batcher.attach(next);
+        mainThread.triggerActions();
+
+        verify(next).increaseWaterLevel(-20f);
+        verify(next).showToast("full");
+        verifyZeroInteractions(view);
+    }
+
+    @Test
+    public void overflow_shouldRenderBeforeIndicator() throws Exception {
+        batcher.edit().setIndicatorPosition(25f);
+        batcher.edit().setOverflow(true);
+        batcher.edit().setMessage("full");
+        batcher.commit();
+        mainThread.triggerActions();
+
+        InOrder order = inOrder(view);
+        order.verify(view).waterLevelOverflow(true);
+        order.verify(view).setTemperatureIndicator(25f);
+        order.verify(view).showToast("full");
+    }
+
+    @Test
+    public void updatesAndRender_shouldNotAllocate() throws Exception {
+        // Per-thread allocation counters are a HotSpot extension, other JVMs skip the check.
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        // Renders each commit in place, TestScheduler and Mockito would allocate on every call.
+        ViewUpdateBatcher batcher = new ViewUpdateBatcher(
+                new TestSchedulerProvider(new TestScheduler(), new InlineScheduler()),
+                new SimulationTrace(Tracer.DISABLED));
+        batcher.attach(new NoOpBathtubView());
+        for (int i = 0; i < FRAMES; i++) {
+            update(batcher, i);
+        }
+
+        long before = allocatedBytes();
+        for (int i = 0; i < FRAMES; i++) {
+            update(batcher, i);
+        }
+        long allocated = allocatedBytes() - before;
+        batcher.release();
+
+        // Reading the counter allocates a few hundred bytes itself, anything per frame would show up as FRAMES times more.
+        assertTrue("bytes allocated by " + FRAMES + " frames: " + allocated, allocated < FRAMES);
+    }
+
+    private static void update(ViewUpdateBatcher batcher, int tick) {
+        RenderState state = batcher.edit();
+        state.setLevel(-tick);
+        state.setTemperature(tick);
+        state.setIndicatorPosition(tick);
+        batcher.commit();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
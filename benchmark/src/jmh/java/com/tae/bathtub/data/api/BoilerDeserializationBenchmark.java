@@ -0,0 +1,77 @@
+package com.tae.bathtub.data.api;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.tae.bathtub.data.api.model.Boiler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.annotation.Annotation;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+
+/**
+ * Compares the streaming converter used in production with plain Gson data binding of the same body,
+ * and with the converter's predecessor, which read the body line by line into a StringBuilder and
+ * handed the String to a new Gson. Run with the gc profiler for the bytes allocated per parse.
+ */
+@State(Scope.Thread)
+public class BoilerDeserializationBenchmark {
+
+    private static final String PAYLOAD = "{\n\thot_water: 50,\n\tcold_water: 10\n}";
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private Gson gson;
+    private Converter<ResponseBody, Boiler> converter;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        gson = new Gson();
+        converter = (Converter<ResponseBody, Boiler>)
+                new BoilerConverterFactory().responseBodyConverter(Boiler.class, new Annotation[0], null);
+    }
+
+    @Benchmark
+    public Boiler streamingConverter() throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(PAYLOAD));
+        try {
+            return BoilerConverterFactory.readBoiler(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public Boiler responseBodyConverter() throws IOException {
+        return converter.convert(ResponseBody.create(JSON, PAYLOAD));
+    }
+
+    @Benchmark
+    public Boiler legacyStringPath() throws IOException {
+        BufferedReader br = new BufferedReader(ResponseBody.create(JSON, PAYLOAD).charStream());
+        StringBuilder sb = new StringBuilder();
+        String line;
+        while ((line = br.readLine()) != null) {
+            sb.append(line).append("\n");
+        }
+        br.close();
+        return new Gson().fromJson(sb.toString(), Boiler.class);
+    }
+
+    @Benchmark
+    public Boiler gsonDataBinding() {
+        JsonReader reader = new JsonReader(new StringReader(PAYLOAD));
+        reader.setLenient(true);
+        return gson.fromJson(reader, Boiler.class);
+    }
+}
@@ -0,0 +1,148 @@
+package com.tae.bathtub.data.api;
+
+import com.tae.bathtub.metrics.Histogram;
+import com.tae.bathtub.metrics.MetricsRegistry;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ServerSocketFactory;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Repeated boiler fetches against a local server, through the shared transport and through one
+ * that cannot keep a connection alive. Each fetch reads and closes the whole body. The connections
+ * counter is reported at the same rate as the fetches, its score over the fetch score is the number
+ * of connections, and so handshakes, per fetch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BoilerFetchBenchmark {
+
+    private static final String PAYLOAD = "{\n\thot_water: 50,\n\tcold_water: 10\n}";
+
+    @Param({"true", "false"})
+    public boolean pooled;
+
+    private MockWebServer server;
+    private MetricsRegistry registry;
+    private OkHttpClient client;
+    private Request request;
+
+    /**
+     * Connections opened during the measurement, reported next to the fetches.
+     */
+    @State(Scope.Thread)
+    @AuxCounters
+    public static class Connections {
+        public long connections;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        // MockWebServer writes headers and body separately, with Nagle on a kept alive connection
+        // would wait for the client's delayed ACK on every response.
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody(PAYLOAD);
+            }
+        });
+        server.start();
+        registry = new MetricsRegistry();
+        // An idle connection is evicted as soon as it is released, every fetch dials again.
+        ConnectionPool pool = pooled ? HttpTransport.newConnectionPool() : new ConnectionPool(0, 1, TimeUnit.MILLISECONDS);
+        client = HttpTransport.newClientBuilder(pool, HttpTransport.newDispatcher(), registry).build();
+        request = new Request.Builder().url(server.url(NetworkConstants.BOILER_END_POINT)).build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.connectionPool().evictAll();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public long fetch(Connections counters) throws IOException {
+        Histogram connects = registry.histogram(MetricsInterceptor.CONNECT);
+        long before = connects.getCount();
+        Response response = client.newCall(request).execute();
+        try {
+            return response.body().bytes().length;
+        } finally {
+            response.body().close();
+            counters.connections += connects.getCount() - before;
+        }
+    }
+
+    /**
+     * Binds like the default factory, and turns Nagle off on every accepted socket. MockWebServer
+     * writes headers and body separately, with Nagle on a kept alive connection would wait for the
+     * client's delayed ACK on every response.
+     */
+    private static class NoDelayServerSocketFactory extends ServerSocketFactory {
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new NoDelayServerSocket();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            return bind(createServerSocket(), new InetSocketAddress(port), 50);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            return bind(createServerSocket(), new InetSocketAddress(port), backlog);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            return bind(createServerSocket(), new InetSocketAddress(address, port), backlog);
+        }
+
+        private static ServerSocket bind(ServerSocket socket, InetSocketAddress address, int backlog)
+                throws IOException {
+            socket.bind(address, backlog);
+            return socket;
+        }
+    }
+
+    private static class NoDelayServerSocket extends ServerSocket {
+        NoDelayServerSocket() throws IOException {
+        }
+
+        @Override
+        public Socket accept() throws IOException {
+            Socket socket = super.accept();
+            socket.setTcpNoDelay(true);
+            return socket;
+        }
+    }
+}
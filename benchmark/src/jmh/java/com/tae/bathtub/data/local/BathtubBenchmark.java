@@ -0,0 +1,86 @@
+package com.tae.bathtub.data.local;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tap lookups run on every click and temperature mixing on every tick, both should stay allocation free.
+ */
+@State(Scope.Thread)
+public class BathtubBenchmark {
+
+    private Bathtub bathtub;
+    private List<Tap> taps;
+    private Tap hotTap;
+    private int clicks;
+    private FillEngine engine;
+    private int cold;
+    private int hot;
+
+    @Setup
+    public void setUp() {
+        hotTap = new Tap(Tap.Type.HOT, 50, true);
+        taps = Arrays.asList(new Tap(Tap.Type.COLD, 10, true), hotTap);
+        bathtub = new Bathtub(taps);
+        cold = 10;
+        hot = 50;
+        engine = new FillEngine(bathtub, 0);
+        engine.onTapsChanged(0);
+    }
+
+    @Benchmark
+    public boolean areTwoTapsOpen() {
+        return bathtub.areTwoTapsOpen();
+    }
+
+    /**
+     * One click: toggle the hot tap, then look it up through the open tap mask.
+     */
+    @Benchmark
+    public int openTapMask() {
+        bathtub.setTapOpen(Tap.Type.HOT, (++clicks & 1) == 0);
+        int result = bathtub.areTwoTapsOpen() ? 1 : 0;
+        if (bathtub.isTapOpen(Tap.Type.HOT)) {
+            result += bathtub.getTap(Tap.Type.HOT).getTemperature();
+        }
+        return result;
+    }
+
+    /**
+     * The same click the way taps were found before the mask: scanning the list and matching type names.
+     */
+    @Benchmark
+    public int tapListScan() {
+        hotTap.setOpen((++clicks & 1) == 0);
+        int open = 0;
+        for (Tap tap : taps) {
+            if (tap.isOpen()) {
+                open++;
+            }
+        }
+        int result = open > 1 ? 1 : 0;
+        for (Tap tap : taps) {
+            if (tap.getType().name().equals("HOT") && tap.isOpen()) {
+                result += tap.getTemperature();
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public double temperatureAt() {
+        return engine.temperatureAt(3000);
+    }
+
+    @Benchmark
+    public int addWater() {
+        bathtub.setLevel(0);
+        bathtub.addWater(cold, hot);
+        return bathtub.getTemperature();
+    }
+}
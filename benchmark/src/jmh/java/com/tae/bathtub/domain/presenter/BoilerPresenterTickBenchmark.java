@@ -0,0 +1,127 @@
+package com.tae.bathtub.domain.presenter;
+
+import com.tae.bathtub.data.api.ServiceCallback;
+import com.tae.bathtub.data.api.model.Boiler;
+import com.tae.bathtub.data.api.model.ErrorResponse;
+import com.tae.bathtub.data.local.Bathtub;
+import com.tae.bathtub.data.local.Tap;
+import com.tae.bathtub.data.local.TapHistory;
+import com.tae.bathtub.domain.interactor.BoilerInteractor;
+import com.tae.bathtub.domain.scheduler.SchedulerProvider;
+import com.tae.bathtub.metrics.MetricsRegistry;
+import com.tae.bathtub.metrics.SimulationTrace;
+import com.tae.bathtub.metrics.Tracer;
+import com.tae.bathtub.presentation.BathtubView;
+import com.tae.bathtub.presentation.NoOpBathtubView;
+import com.tae.bathtub.presentation.ViewUpdateBatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import rx.Scheduler;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * One operation is one simulation tick: the clock fires, the fill engine samples the bathtub and the
+ * new state is rendered into a view that does nothing.
+ */
+@State(Scope.Thread)
+public class BoilerPresenterTickBenchmark {
+
+    private static final int TICK_SECONDS = 3;
+
+    @Param({"false", "true"})
+    public boolean traced;
+
+    private BoilerPresenterImpl presenter;
+    private TestScheduler clock;
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        BathtubView view = new NoOpBathtubView();
+        clock = new TestScheduler();
+        executor = Executors.newSingleThreadExecutor();
+        presenter = new BoilerPresenterImpl();
+        presenter.schedulers = new SchedulerProvider() {
+            @Override
+            public Scheduler mainThread() {
+                return Schedulers.immediate();
+            }
+
+            @Override
+            public Scheduler simulation() {
+                return clock;
+            }
+
+            @Override
+            public Scheduler computation() {
+                return Schedulers.computation();
+            }
+        };
+        presenter.trace = new SimulationTrace(traced ? new Tracer(new MetricsRegistry()) : Tracer.DISABLED);
+        presenter.viewUpdates = new ViewUpdateBatcher(presenter.schedulers, presenter.trace);
+        presenter.attachView(view);
+        presenter.simulationExecutor = executor;
+        presenter.history = new TapHistory(TapHistory.DEFAULT_CAPACITY, TapHistory.DEFAULT_SNAPSHOT_INTERVAL);
+        presenter.interactor = new BoilerInteractor() {
+            @Override
+            public void getBoiler(ServiceCallback<Boiler, ErrorResponse> callback) {
+                callback.onServiceResponse(new Boiler(50, 10));
+            }
+
+            @Override
+            public void restoreBoiler(Boiler boiler, long ageMillis) {
+            }
+
+            @Override
+            public long getBoilerAgeMillis(Boiler boiler) {
+                return 0;
+            }
+
+            @Override
+            public Subscription watchBoiler(ServiceCallback<Boiler, ErrorResponse> callback) {
+                return Subscriptions.empty();
+            }
+        };
+        // Taps only flow once a boiler has landed.
+        presenter.initBoilerService();
+
+        Boiler boiler = new Boiler(50, 10);
+        Tap coldTap = new Tap(Tap.Type.COLD, boiler.getCold_water(), true);
+        Tap hotTap = new Tap(Tap.Type.HOT, boiler.getHot_water(), true);
+        // A trickle keeps the bathtub from filling up during a run, every tick stays a regular one.
+        // Much slower and the overflow time no longer fits the TestScheduler's nanosecond clock.
+        coldTap.setFlowRate(2e-8);
+        hotTap.setFlowRate(2e-8);
+        Bathtub bathtub = new Bathtub(Arrays.asList(coldTap, hotTap));
+        bathtub.setLevel(Bathtub.MAX_CAPACITY / 2);
+        bathtub.setTemperature(30);
+        // Both taps start open, the first tick settles the tap events into a running flow.
+        presenter.getBathtub(bathtub);
+        clock.advanceTimeBy(TICK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        presenter.release();
+    }
+
+    @Benchmark
+    public long tick() {
+        clock.advanceTimeBy(TICK_SECONDS, TimeUnit.SECONDS);
+        return clock.now();
+    }
+}
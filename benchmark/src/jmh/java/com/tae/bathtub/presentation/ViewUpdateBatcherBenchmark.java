@@ -0,0 +1,65 @@
+package com.tae.bathtub.presentation;
+
+import com.tae.bathtub.domain.scheduler.InlineScheduler;
+import com.tae.bathtub.domain.scheduler.SchedulerProvider;
+import com.tae.bathtub.metrics.SimulationTrace;
+import com.tae.bathtub.metrics.Tracer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * One operation is one frame: a tick edits the render state and commits it, and the view is rendered
+ * in place. gc.alloc.rate.norm should stay at zero, ViewUpdateBatcherTest fails the build if this path
+ * starts allocating per frame.
+ */
+@State(Scope.Thread)
+public class ViewUpdateBatcherBenchmark {
+
+    private ViewUpdateBatcher batcher;
+    private int tick;
+
+    @Setup
+    public void setUp() {
+        final Scheduler inline = new InlineScheduler();
+        batcher = new ViewUpdateBatcher(new SchedulerProvider() {
+            @Override
+            public Scheduler mainThread() {
+                return inline;
+            }
+
+            @Override
+            public Scheduler simulation() {
+                return inline;
+            }
+
+            @Override
+            public Scheduler computation() {
+                return Schedulers.computation();
+            }
+        }, new SimulationTrace(Tracer.DISABLED));
+        batcher.attach(new NoOpBathtubView());
+    }
+
+    @TearDown
+    public void tearDown() {
+        batcher.release();
+    }
+
+    @Benchmark
+    public int frame() {
+        tick++;
+        RenderState state = batcher.edit();
+        state.setLevel(-tick);
+        state.setTemperature(tick);
+        state.setIndicatorPosition(tick);
+        batcher.commit();
+        return tick;
+    }
+}
@@ -0,0 +1,48 @@
+package com.tae.bathtub.simulation;
+
+import com.tae.bathtub.data.api.model.Boiler;
+import com.tae.bathtub.data.local.Tap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * One operation advances the whole fleet by a tick. The steps are short enough that no bathtub
+ * fills up during a run, so every step does the full mixing work.
+ */
+@State(Scope.Benchmark)
+public class FleetEngineBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int fleetSize;
+
+    private ForkJoinPool pool;
+    private FleetEngine fleet;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool();
+        fleet = new FleetEngine(new Boiler(50, 10), fleetSize, pool);
+        for (int i = 0; i < fleetSize; i++) {
+            fleet.setTapOpen(i, Tap.Type.COLD, true);
+            fleet.setTapOpen(i, Tap.Type.HOT, i % 2 == 0);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public FleetEngine step() {
+        fleet.step(1e-9);
+        return fleet;
+    }
+}
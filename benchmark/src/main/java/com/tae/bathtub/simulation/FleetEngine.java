@@ -0,0 +1,153 @@
+package com.tae.bathtub.simulation;
+
+import com.tae.bathtub.data.api.model.Boiler;
+import com.tae.bathtub.data.local.Bathtub;
+import com.tae.bathtub.data.local.Tap;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Headless fill simulation for a whole fleet of bathtubs. State is kept as one primitive array per
+ * field, indexed by bathtub, and each step splits the fleet into ranges advanced in parallel on a
+ * {@link ForkJoinPool}. Fill and mixing follow {@link Bathtub} and {@link com.tae.bathtub.data.local.FillEngine}:
+ * open taps pour at their flow rate and the water mixes by volume until the bathtub is full.
+ *
+ * Tap changes and steps must not overlap, reads are only consistent between steps.
+ */
+public class FleetEngine {
+
+    // Bathtubs stepped sequentially by one task, large enough to amortise the fork.
+    private static final int STEP_CHUNK = 4096;
+    private static final Tap.Type[] TAP_TYPES = Tap.Type.values();
+
+    private final int size;
+    private final ForkJoinPool pool;
+    private final double[] level;
+    private final double[] temperature;
+    private final byte[] openTaps;
+    // Inflow for every open tap mask, looked up per bathtub instead of summing taps.
+    private final double[] flowByMask;
+    private final double[] inflowTemperatureByMask;
+
+    public FleetEngine(Boiler boiler, int size, ForkJoinPool pool) {
+        this.size = size;
+        this.pool = pool;
+        level = new double[size];
+        temperature = new double[size];
+        openTaps = new byte[size];
+        int masks = 1 << TAP_TYPES.length;
+        flowByMask = new double[masks];
+        inflowTemperatureByMask = new double[masks];
+        for (int mask = 0; mask < masks; mask++) {
+            double flow = 0;
+            double heatFlow = 0;
+            for (Tap.Type type : TAP_TYPES) {
+                if ((mask & (1 << type.ordinal())) != 0) {
+                    flow += type.getDefaultFlowRate();
+                    heatFlow += type.getDefaultFlowRate() * waterTemperature(boiler, type);
+                }
+            }
+            flowByMask[mask] = flow;
+            inflowTemperatureByMask[mask] = flow > 0 ? heatFlow / flow : 0;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void setTapOpen(int bathtub, Tap.Type type, boolean open) {
+        int bit = 1 << type.ordinal();
+        openTaps[bathtub] = (byte) (open ? openTaps[bathtub] | bit : openTaps[bathtub] & ~bit);
+    }
+
+    public boolean isTapOpen(int bathtub, Tap.Type type) {
+        return (openTaps[bathtub] & (1 << type.ordinal())) != 0;
+    }
+
+    /**
+     * Opens or closes {@code type} on every bathtub.
+     */
+    public void setTapOpen(Tap.Type type, boolean open) {
+        for (int i = 0; i < size; i++) {
+            setTapOpen(i, type, open);
+        }
+    }
+
+    public double getLevel(int bathtub) {
+        return level[bathtub];
+    }
+
+    public double getTemperature(int bathtub) {
+        return temperature[bathtub];
+    }
+
+    public boolean isFull(int bathtub) {
+        return level[bathtub] >= Bathtub.MAX_CAPACITY;
+    }
+
+    public int countFull() {
+        int full = 0;
+        for (int i = 0; i < size; i++) {
+            if (isFull(i)) {
+                full++;
+            }
+        }
+        return full;
+    }
+
+    /**
+     * Advances every bathtub by {@code seconds} and waits for the step to finish.
+     */
+    public void step(double seconds) {
+        pool.invoke(new StepTask(0, size, seconds));
+    }
+
+    private void stepRange(int from, int to, double seconds) {
+        for (int i = from; i < to; i++) {
+            int mask = openTaps[i];
+            double room = Bathtub.MAX_CAPACITY - level[i];
+            if (mask == 0 || room <= 0) {
+                continue;
+            }
+            double inflow = Math.min(flowByMask[mask] * seconds, room);
+            double volume = level[i] + inflow;
+            temperature[i] = (level[i] * temperature[i] + inflow * inflowTemperatureByMask[mask]) / volume;
+            level[i] = volume;
+        }
+    }
+
+    private static int waterTemperature(Boiler boiler, Tap.Type type) {
+        switch (type) {
+            case COLD:
+                return boiler.getCold_water();
+            case HOT:
+                return boiler.getHot_water();
+            default:
+                throw new IllegalArgumentException("No water for tap " + type);
+        }
+    }
+
+    private class StepTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final double seconds;
+
+        StepTask(int from, int to, double seconds) {
+            this.from = from;
+            this.to = to;
+            this.seconds = seconds;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= STEP_CHUNK) {
+                stepRange(from, to, seconds);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new StepTask(from, middle, seconds), new StepTask(middle, to, seconds));
+        }
+    }
+}
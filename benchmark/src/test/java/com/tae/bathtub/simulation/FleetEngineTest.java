@@ -0,0 +1,96 @@
+package com.tae.bathtub.simulation;
+
+import com.tae.bathtub.data.api.model.Boiler;
+import com.tae.bathtub.data.local.Bathtub;
+import com.tae.bathtub.data.local.FillEngine;
+import com.tae.bathtub.data.local.Tap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class FleetEngineTest {
+
+    private static final int FLEET = 100000;
+
+    private ForkJoinPool pool;
+    private Boiler boiler;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new ForkJoinPool(4);
+        boiler = new Boiler(50, 10);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void step_shouldMatchSingleBathtubFillEngine() throws Exception {
+        FleetEngine fleet = new FleetEngine(boiler, FLEET, pool);
+        fleet.setTapOpen(Tap.Type.COLD, true);
+        fleet.setTapOpen(Tap.Type.HOT, true);
+
+        Bathtub bathtub = new Bathtub(Arrays.asList(
+                new Tap(Tap.Type.COLD, boiler.getCold_water(), true),
+                new Tap(Tap.Type.HOT, boiler.getHot_water(), true)));
+        FillEngine engine = new FillEngine(bathtub, 0);
+        engine.onTapsChanged(0);
+
+        for (int second = 1; second <= 5; second++) {
+            fleet.step(1);
+            engine.sample(second * 1000L);
+        }
+
+        for (int i = 0; i < FLEET; i += FLEET / 10) {
+            assertEquals(bathtub.getVolume(), fleet.getLevel(i), 1e-9);
+            assertEquals(bathtub.getHeat() / bathtub.getVolume(), fleet.getTemperature(i), 1e-9);
+        }
+    }
+
+    @Test
+    public void step_shouldStopAtCapacity() throws Exception {
+        FleetEngine fleet = new FleetEngine(boiler, FLEET, pool);
+        for (int i = 0; i < FLEET; i += 2) {
+            fleet.setTapOpen(i, Tap.Type.HOT, true);
+        }
+
+        for (int second = 0; second < 120; second++) {
+            fleet.step(1);
+        }
+
+        assertEquals(FLEET / 2, fleet.countFull());
+        assertEquals(Bathtub.MAX_CAPACITY, fleet.getLevel(0), 0);
+        assertEquals(boiler.getHot_water(), fleet.getTemperature(0), 1e-9);
+        assertFalse(fleet.isFull(1));
+        assertEquals(0, fleet.getLevel(1), 0);
+    }
+
+    @Test
+    public void closingTap_shouldChangeInflowOnNextStep() throws Exception {
+        FleetEngine fleet = new FleetEngine(boiler, 1, pool);
+        fleet.setTapOpen(0, Tap.Type.COLD, true);
+        fleet.step(3);
+        fleet.setTapOpen(0, Tap.Type.COLD, false);
+        fleet.setTapOpen(0, Tap.Type.HOT, true);
+        fleet.step(3);
+
+        assertTrue(fleet.isTapOpen(0, Tap.Type.HOT));
+        assertFalse(fleet.isTapOpen(0, Tap.Type.COLD));
+        assertEquals(22, fleet.getLevel(0), 1e-9);
+        // 10 units at 10 and 12 units at 50
+        assertEquals((10 * 10 + 12 * 50) / 22d, fleet.getTemperature(0), 1e-9);
+    }
+}